@@ -0,0 +1,123 @@
+package com.ft.methodeimagemodelmapper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds benchmark inputs from the test fixtures in <code>src/test/resources</code>, optionally scaled up.
+ */
+final class BenchmarkFixtures {
+
+    static final String UUID = "d7625378-d4cd-11e2-bce1-002128161462";
+    static final String TRANSACTION_ID = "tid_benchmark";
+
+    private static final String USAGE_TICKET_START = "<t>";
+    private static final String USAGE_TICKETS_END = "</tl>";
+    private static final int PNG_SIGNATURE_SIZE = 8;
+    private static final int PNG_CHUNK_OVERHEAD = 12;
+    private static final int PNG_MAX_PADDING_CHUNK = 1 << 20;
+    private static final byte[] PNG_IDAT = "IDAT".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int JPEG_END_OF_IMAGE_SIZE = 2;
+
+    private BenchmarkFixtures() {
+    }
+
+    static String loadString(final String resource) {
+        return new String(loadBytes(resource), StandardCharsets.UTF_8);
+    }
+
+    static byte[] loadBytes(final String resource) {
+        try {
+            return ByteStreams.toByteArray(Resources.getResource(resource).openStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The sample usage tickets with their ticket list repeated <code>scale</code> times.
+     */
+    static String usageTickets(final int scale) {
+        final String sample = loadString("sample-usage-tickets.xml");
+        final String tickets = sample.substring(sample.indexOf(USAGE_TICKET_START), sample.lastIndexOf(USAGE_TICKETS_END));
+        final StringBuilder scaled = new StringBuilder(sample.substring(0, sample.indexOf(USAGE_TICKET_START)));
+        for (int i = 0; i < scale; i++) {
+            scaled.append(tickets);
+        }
+        return scaled.append(USAGE_TICKETS_END).toString();
+    }
+
+    /**
+     * The PNG grown to about <code>size</code> bytes by adding filler <code>IDAT</code> chunks in front of the first
+     * one, as a larger image would have. Chunks that follow the image data, such as text, stay after it.
+     */
+    static byte[] pngPaddedTo(final byte[] png, final int size) {
+        final int firstImageData = firstPngImageData(png);
+        final ByteArrayOutputStream padded = new ByteArrayOutputStream(Math.max(size, png.length));
+        padded.write(png, 0, firstImageData);
+        int missing = size - png.length;
+        while (missing > PNG_CHUNK_OVERHEAD) {
+            final int length = Math.min(missing - PNG_CHUNK_OVERHEAD, PNG_MAX_PADDING_CHUNK);
+            writeInt(padded, length);
+            padded.write(PNG_IDAT, 0, PNG_IDAT.length);
+            padded.write(new byte[length], 0, length);
+            writeInt(padded, 0);
+            missing -= length + PNG_CHUNK_OVERHEAD;
+        }
+        padded.write(png, firstImageData, png.length - firstImageData);
+        return padded.toByteArray();
+    }
+
+    /**
+     * The JPEG grown to about <code>size</code> bytes by extending the entropy-coded data before the end-of-image marker.
+     */
+    static byte[] jpegPaddedTo(final byte[] jpeg, final int size) {
+        if (size <= jpeg.length) {
+            return jpeg;
+        }
+        final byte[] padded = new byte[size];
+        final int endOfImage = jpeg.length - JPEG_END_OF_IMAGE_SIZE;
+        System.arraycopy(jpeg, 0, padded, 0, endOfImage);
+        System.arraycopy(jpeg, endOfImage, padded, size - JPEG_END_OF_IMAGE_SIZE, JPEG_END_OF_IMAGE_SIZE);
+        return padded;
+    }
+
+    /**
+     * A plain mapper, with or without the Afterburner module that Dropwizard's own mapper registers.
+     */
+    static ObjectMapper objectMapper(final boolean afterburner) {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        return afterburner ? objectMapper.registerModule(new AfterburnerModule()) : objectMapper;
+    }
+
+    /**
+     * The sample system attributes, declaring the given Methode file type such as <code>JPEG</code> or <code>PNG</code>.
+     */
+    static String systemAttributes(final String fileType) {
+        return loadString("sample-system-attributes.xml").replace("<fileType>JPEG</fileType>", "<fileType>" + fileType + "</fileType>");
+    }
+
+    private static int firstPngImageData(final byte[] png) {
+        int position = PNG_SIGNATURE_SIZE;
+        while (position + PNG_CHUNK_OVERHEAD <= png.length) {
+            final int length = ByteBuffer.wrap(png, position, 4).getInt();
+            if (png[position + 4] == 'I' && png[position + 5] == 'D' && png[position + 6] == 'A' && png[position + 7] == 'T') {
+                return position;
+            }
+            position += length + PNG_CHUNK_OVERHEAD;
+        }
+        throw new IllegalArgumentException("PNG has no image data");
+    }
+
+    private static void writeInt(final ByteArrayOutputStream out, final int value) {
+        out.write(ByteBuffer.allocate(4).putInt(value).array(), 0, 4);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ft.methodeimagemodelmapper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the body of a native Methode message into an {@link EomFile}, as the listener does, with the base64 binary
+ * of native-methode-image-model.json padded from tens of KB to tens of MB. <code>readerPerMessage</code> asks the
+ * mapper for a reader on every message; <code>sharedReader</code> reuses one, as the listener does.
+ * <code>afterburner</code> toggles bytecode-generated accessors.
+ * Run with <code>-prof gc</code> to get the bytes allocated per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class EomFileDeserializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "30000"})
+    public int binarySizeKb;
+
+    @Param({"true", "false"})
+    public boolean afterburner;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader reader;
+    private String messageBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = BenchmarkFixtures.objectMapper(afterburner);
+        reader = objectMapper.reader(EomFile.class);
+        final ObjectNode message = (ObjectNode) objectMapper.readTree(BenchmarkFixtures.loadString("native-methode-image-model.json"));
+        final byte[] binary = BenchmarkFixtures.jpegPaddedTo(message.get("value").binaryValue(), binarySizeKb * 1024);
+        message.put("value", binary);
+        messageBody = objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public EomFile readerPerMessage() throws IOException {
+        return objectMapper.reader(EomFile.class).readValue(messageBody);
+    }
+
+    @Benchmark
+    public EomFile sharedReader() throws IOException {
+        return reader.readValue(messageBody);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ft.methodeimagemodelmapper.benchmark;
+
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.service.GraphicResolver;
+import com.ft.methodeimagemodelmapper.service.StaxAttributesExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves Image vs Graphic for JPEGs, plain PNGs and PNGs tagged as graphics, padded to sizes from tens of KB to
+ * tens of MB. For PNGs, <code>methodeMetadata</code> is decided by the Methode attributes XML before the binary is read;
+ * <code>binaryMetadata</code> has no attributes, so the decision falls to the binary metadata sniffers.
+ * JPEGs ignore the Methode attributes and take the binary path in both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class GraphicResolverBenchmark {
+
+    private static final String GRAPHIC_ATTRIBUTES = "<meta><picture><FTImageType>graphic</FTImageType></picture></meta>";
+
+    public enum Binary {
+        JPEG("sample-image.jpg", "image/jpeg"),
+        PNG("sample-image.png", "image/png"),
+        GRAPHIC("sample-graphic.png", "image/png");
+
+        private final String resource;
+        private final String mediaType;
+
+        Binary(final String resource, final String mediaType) {
+            this.resource = resource;
+            this.mediaType = mediaType;
+        }
+
+        byte[] paddedTo(final int size) {
+            final byte[] sample = BenchmarkFixtures.loadBytes(resource);
+            return this == JPEG ? BenchmarkFixtures.jpegPaddedTo(sample, size) : BenchmarkFixtures.pngPaddedTo(sample, size);
+        }
+    }
+
+    @Param({"JPEG", "PNG", "GRAPHIC"})
+    public Binary binary;
+
+    @Param({"50", "1000", "10000", "50000"})
+    public int sizeKb;
+
+    private final GraphicResolver graphicResolver = new GraphicResolver(new StaxAttributesExtractor());
+    private EomFile withAttributes;
+    private EomFile withoutAttributes;
+
+    @Setup
+    public void setUp() {
+        final byte[] value = binary.paddedTo(sizeKb * 1024);
+        withAttributes = new EomFile.Builder().withUuid(BenchmarkFixtures.UUID).withValue(value).withAttributes(GRAPHIC_ATTRIBUTES).build();
+        withoutAttributes = new EomFile.Builder().withUuid(BenchmarkFixtures.UUID).withValue(value).build();
+    }
+
+    @Benchmark
+    public String methodeMetadata() {
+        return graphicResolver.resolveType(withAttributes, binary.mediaType, BenchmarkFixtures.TRANSACTION_ID);
+    }
+
+    @Benchmark
+    public String binaryMetadata() {
+        return graphicResolver.resolveType(withoutAttributes, binary.mediaType, BenchmarkFixtures.TRANSACTION_ID);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ft.methodeimagemodelmapper.benchmark;
+
+import com.ft.content.model.Content;
+import com.ft.messaging.standards.message.v1.Message;
+import com.ft.methodeimagemodelmapper.messaging.MessageProducingContentMapper;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.service.GraphicResolver;
+import com.ft.methodeimagemodelmapper.service.MethodeImageModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.core.UriBuilder;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps an already mapped image model in its outbound message: building the envelope, the content URIs and the
+ * RFC 3339 date, and serializing it all to JSON. The model comes from mapping the sample image, so it has realistic
+ * identifiers, copyright and dates. <code>afterburner</code> toggles bytecode-generated accessors for the model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageEnvelopeBenchmark {
+
+    @Param({"sample-image.jpg", "sample-graphic.png"})
+    public String binary;
+
+    @Param({"true", "false"})
+    public boolean afterburner;
+
+    private MessageProducingContentMapper messageProducingContentMapper;
+    private Content content;
+
+    @Setup
+    public void setUp() {
+        final MethodeImageModelMapper imageModelMapper = new MethodeImageModelMapper("http://com.ft.imagepublish.int.s3.amazonaws.com/",
+                Collections.singletonList("https://ig\\.ft\\.com/.*"), new GraphicResolver());
+        final Date lastModified = new Date();
+        final EomFile eomFile = new EomFile.Builder()
+                .withUuid(BenchmarkFixtures.UUID)
+                .withType("Image")
+                .withValue(BenchmarkFixtures.loadBytes(binary))
+                .withAttributes(BenchmarkFixtures.loadString("sample-attributes.xml"))
+                .withWorkflowStatus("")
+                .withSystemAttributes(BenchmarkFixtures.systemAttributes(binary.endsWith(".png") ? "PNG" : "JPEG"))
+                .withUsageTickets(BenchmarkFixtures.usageTickets(1))
+                .builder(lastModified)
+                .build();
+        content = imageModelMapper.mapImageModel(eomFile, BenchmarkFixtures.TRANSACTION_ID, lastModified);
+        messageProducingContentMapper = new MessageProducingContentMapper(imageModelMapper, BenchmarkFixtures.objectMapper(afterburner),
+                "methode-web-pub", messages -> { },
+                UriBuilder.fromUri("http://methode-image-model-mapper.svc.ft.com/image/model").path("{uuid}"));
+    }
+
+    @Benchmark
+    public Message createMessage() {
+        return messageProducingContentMapper.createMessage(content);
+    }
+}
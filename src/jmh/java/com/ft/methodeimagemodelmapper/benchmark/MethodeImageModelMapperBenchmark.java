@@ -0,0 +1,73 @@
+package com.ft.methodeimagemodelmapper.benchmark;
+
+import com.ft.content.model.Content;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.service.AttributesExtractor;
+import com.ft.methodeimagemodelmapper.service.DomAttributesExtractor;
+import com.ft.methodeimagemodelmapper.service.GraphicResolver;
+import com.ft.methodeimagemodelmapper.service.MethodeImageModelMapper;
+import com.ft.methodeimagemodelmapper.service.StaxAttributesExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps the sample Methode image end to end, with either attributes engine, for each sample binary and with the
+ * usage tickets scaled up. Run with <code>-prof gc</code> to get the bytes allocated per mapped image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodeImageModelMapperBenchmark {
+
+    @Param({"DOM", "STAX"})
+    public String attributesExtractor;
+
+    @Param({"sample-image.jpg", "sample-image.png", "sample-graphic.png"})
+    public String binary;
+
+    @Param({"1", "10", "100"})
+    public int usageTicketsScale;
+
+    private MethodeImageModelMapper mapper;
+    private EomFile eomFile;
+    private Date lastModified;
+
+    @Setup
+    public void setUp() {
+        final AttributesExtractor extractor = "STAX".equals(attributesExtractor) ? new StaxAttributesExtractor() : new DomAttributesExtractor();
+        mapper = new MethodeImageModelMapper("http://com.ft.imagepublish.int.s3.amazonaws.com/",
+                Collections.singletonList("https://ig\\.ft\\.com/.*"), new GraphicResolver(extractor), extractor);
+        lastModified = new Date();
+        eomFile = new EomFile.Builder()
+                .withUuid(BenchmarkFixtures.UUID)
+                .withType("Image")
+                .withValue(BenchmarkFixtures.loadBytes(binary))
+                .withAttributes(BenchmarkFixtures.loadString("sample-attributes.xml"))
+                .withWorkflowStatus("")
+                .withSystemAttributes(BenchmarkFixtures.systemAttributes(binary.endsWith(".png") ? "PNG" : "JPEG"))
+                .withUsageTickets(BenchmarkFixtures.usageTickets(usageTicketsScale))
+                .builder(lastModified)
+                .build();
+    }
+
+    @Benchmark
+    public Content mapImageModel() {
+        return mapper.mapImageModel(eomFile, BenchmarkFixtures.TRANSACTION_ID, lastModified);
+    }
+}
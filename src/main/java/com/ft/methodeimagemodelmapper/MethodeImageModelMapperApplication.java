@@ -1,5 +1,6 @@
 package com.ft.methodeimagemodelmapper;
 
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheckRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ft.api.util.buildinfo.BuildInfoResource;
@@ -10,15 +11,38 @@ import com.ft.message.consumer.MessageListener;
 import com.ft.message.consumer.MessageQueueConsumerInitializer;
 import com.ft.messagequeueproducer.MessageProducer;
 import com.ft.messagequeueproducer.QueueProxyProducer;
+import com.ft.methodeimagemodelmapper.configuration.AttributesExtractorType;
+import com.ft.methodeimagemodelmapper.configuration.BatchConfiguration;
 import com.ft.methodeimagemodelmapper.configuration.ConsumerConfiguration;
+import com.ft.methodeimagemodelmapper.configuration.ContentDeduplicationConfiguration;
+import com.ft.methodeimagemodelmapper.configuration.DuplicateFilterConfiguration;
+import com.ft.methodeimagemodelmapper.configuration.GraphicResolverCacheConfiguration;
+import com.ft.methodeimagemodelmapper.configuration.MessageBatchingConfiguration;
 import com.ft.methodeimagemodelmapper.configuration.MethodeImageModelMapperConfiguration;
+import com.ft.methodeimagemodelmapper.configuration.PipelineConfiguration;
 import com.ft.methodeimagemodelmapper.configuration.ProducerConfiguration;
+import com.ft.methodeimagemodelmapper.configuration.WorkerPoolConfiguration;
+import com.ft.methodeimagemodelmapper.health.AsyncPublishFailuresHealthcheck;
 import com.ft.methodeimagemodelmapper.health.CanConnectToMessageQueueProducerProxyHealthcheck;
+import com.ft.methodeimagemodelmapper.health.HealthcheckConfiguration;
+import com.ft.methodeimagemodelmapper.messaging.BatchingMessageProducer;
+import com.ft.methodeimagemodelmapper.messaging.ContentDeduplicator;
+import com.ft.methodeimagemodelmapper.messaging.DuplicateMessageFilter;
+import com.ft.methodeimagemodelmapper.messaging.KeyOrderedExecutor;
 import com.ft.methodeimagemodelmapper.messaging.MessageProducingContentMapper;
 import com.ft.methodeimagemodelmapper.messaging.NativeCmsPublicationEventsListener;
+import com.ft.methodeimagemodelmapper.messaging.PublishLagRecorder;
+import com.ft.methodeimagemodelmapper.messaging.PublishingPipeline;
 import com.ft.methodeimagemodelmapper.resources.MethodeImageModelResource;
+import com.ft.methodeimagemodelmapper.service.AttributesExtractor;
+import com.ft.methodeimagemodelmapper.service.CachingTypeResolver;
+import com.ft.methodeimagemodelmapper.service.DomAttributesExtractor;
+import com.ft.methodeimagemodelmapper.service.ExternalBinaryUrlWhitelist;
 import com.ft.methodeimagemodelmapper.service.GraphicResolver;
 import com.ft.methodeimagemodelmapper.service.MethodeImageModelMapper;
+import com.ft.methodeimagemodelmapper.service.StaxAttributesExtractor;
+import com.ft.methodeimagemodelmapper.service.TypeResolver;
+import com.ft.methodeimagemodelmapper.tasks.ExternalBinaryUrlWhitelistTask;
 import com.ft.methodeimagemodelmapper.validation.PublishingValidator;
 import com.ft.platform.dropwizard.AdvancedHealthCheckBundle;
 import com.ft.platform.dropwizard.DefaultGoodToGoChecker;
@@ -32,10 +56,25 @@ import io.dropwizard.setup.Environment;
 
 import javax.servlet.DispatcherType;
 import javax.ws.rs.core.UriBuilder;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class MethodeImageModelMapperApplication extends Application<MethodeImageModelMapperConfiguration> {
 
+    private static final HealthcheckConfiguration ASYNC_PUBLISH_FAILURES_HEALTHCHECK = new HealthcheckConfiguration(
+            "Consumed messages are published", 2,
+            "Methode image models that failed to publish will not be available from the Content API until republished",
+            "Fails for 10 minutes after a message consumed from Kafka fails to map or publish on a worker lane or pipeline stage,"
+                    + " after it has been acknowledged. Such messages are not redelivered.",
+            "https://dewey.ft.com/up-mimm.html");
+    private static final long ASYNC_PUBLISH_FAILURES_WINDOW_MINUTES = 10;
+
     public static void main(String[] args) throws Exception {
         new MethodeImageModelMapperApplication().run(args);
     }
@@ -49,7 +88,7 @@ public class MethodeImageModelMapperApplication extends Application<MethodeImage
     @Override
     public void run(MethodeImageModelMapperConfiguration configuration, Environment environment) throws Exception {
         environment.servlets().addFilter("transactionIdFilter", new TransactionIdFilter())
-                .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/ingest", "/map");
+                .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/ingest", "/map", "/map/batch", "/ingest/batch");
 
         JerseyEnvironment jersey = environment.jersey();
         jersey.register(new VersionResource());
@@ -62,28 +101,48 @@ public class MethodeImageModelMapperApplication extends Application<MethodeImage
 
         final UriBuilder contentUriBuilder = UriBuilder.fromUri(configuration.getContentUriPrefix()).path("{uuid}");
 
+        final AttributesExtractor attributesExtractor = createAttributesExtractor(configuration.getAttributesExtractor());
+        final ExternalBinaryUrlWhitelist externalBinaryUrlWhitelist = new ExternalBinaryUrlWhitelist(
+                configuration.getExternalBinaryUrlWhitelist(), environment.metrics());
+        environment.admin().addTask(new ExternalBinaryUrlWhitelistTask(externalBinaryUrlWhitelist));
         MethodeImageModelMapper imageModelMapper = new MethodeImageModelMapper(
                 configuration.getExternalBinaryUrlBasePath(),
-                configuration.getExternalBinaryUrlWhitelist(),
-                new GraphicResolver());
+                externalBinaryUrlWhitelist,
+                createGraphicResolver(attributesExtractor, configuration.getGraphicResolverCache(), environment.metrics()),
+                attributesExtractor, environment.metrics());
+        final ContentDeduplicator deduplicator = createContentDeduplicator(configuration.getContentDeduplication(),
+                objectMapper, environment.metrics());
         MessageProducingContentMapper contentMapper = new MessageProducingContentMapper(
                 imageModelMapper,
                 objectMapper, consumerConfig.getSystemCode(),
-                producer, contentUriBuilder);
+                producer, contentUriBuilder, deduplicator, environment.metrics());
 
         Client consumerClient = getConsumerClient(environment, consumerConfig);
 
         PublishingValidator publishingValidator = new PublishingValidator();
 
-        MessageListener listener = new NativeCmsPublicationEventsListener(
-                consumerConfig.getSystemCode(),
-                contentMapper,
-                objectMapper,
-                publishingValidator);
+        final MessageProducingContentMapper listenerContentMapper = new MessageProducingContentMapper(
+                imageModelMapper,
+                objectMapper, consumerConfig.getSystemCode(),
+                createListenerProducer(environment, configuration.getProducerConfiguration(), producer),
+                contentUriBuilder, deduplicator, new PublishLagRecorder(environment.metrics()), environment.metrics());
+        MessageListener listener = createListener(environment, consumerConfig, imageModelMapper, listenerContentMapper,
+                objectMapper, publishingValidator);
+        final DuplicateFilterConfiguration duplicateFilterConfig = consumerConfig.getDuplicateFilterConfiguration();
+        if (duplicateFilterConfig != null) {
+            listener = new DuplicateMessageFilter(listener, duplicateFilterConfig.getWindow().getQuantity(),
+                    duplicateFilterConfig.getWindow().getUnit(), duplicateFilterConfig.getMaximumSize(), environment.metrics());
+        }
 
         startListener(environment, listener, consumerConfig, consumerClient);
 
-        environment.jersey().register(new MethodeImageModelResource(imageModelMapper, contentMapper, publishingValidator));
+        final BatchConfiguration batchConfig = configuration.getBatchConfiguration();
+        final ExecutorService batchExecutor = environment.lifecycle().executorService("batch-mapper-%d")
+                .minThreads(batchConfig.getParallelism())
+                .maxThreads(batchConfig.getParallelism())
+                .build();
+        environment.jersey().register(new MethodeImageModelResource(imageModelMapper, contentMapper, publishingValidator,
+                objectMapper, batchExecutor, batchConfig));
     }
 
     protected MessageProducer configureMessageProducer(Environment environment, ProducerConfiguration config) {
@@ -110,6 +169,66 @@ public class MethodeImageModelMapperApplication extends Application<MethodeImage
         return producer;
     }
 
+    private MessageProducer createListenerProducer(Environment environment, ProducerConfiguration config, MessageProducer producer) {
+        final MessageBatchingConfiguration batchingConfig = config.getBatchingConfiguration();
+        if (batchingConfig == null) {
+            return producer;
+        }
+        final ScheduledExecutorService scheduler = environment.lifecycle().scheduledExecutorService("message-batcher-%d").build();
+        final BatchingMessageProducer batchingProducer = new BatchingMessageProducer(producer,
+                batchingConfig.getMaxMessages(), batchingConfig.getMaxSize().toBytes(),
+                batchingConfig.getLinger().toMilliseconds(), scheduler, environment.metrics());
+        environment.lifecycle().manage(batchingProducer);
+        return batchingProducer;
+    }
+
+    private ContentDeduplicator createContentDeduplicator(ContentDeduplicationConfiguration config, ObjectMapper objectMapper,
+                                                          MetricRegistry metrics) {
+        if (config == null) {
+            return null;
+        }
+        return new ContentDeduplicator(objectMapper, config.getMaximumSize(), config.isAlwaysEmit(), metrics);
+    }
+
+    private MessageListener createListener(Environment environment, ConsumerConfiguration config,
+                                           MethodeImageModelMapper imageModelMapper,
+                                           MessageProducingContentMapper contentMapper,
+                                           ObjectMapper objectMapper, PublishingValidator publishingValidator) {
+        final PipelineConfiguration pipelineConfig = config.getPipelineConfiguration();
+        if (pipelineConfig != null) {
+            final KeyOrderedExecutor sendStage = createWorkers(environment, "pipeline-send", pipelineConfig.getSend());
+            final KeyOrderedExecutor serializeStage = createWorkers(environment, "pipeline-serialize", pipelineConfig.getSerialize());
+            final KeyOrderedExecutor mapStage = createWorkers(environment, "pipeline-map", pipelineConfig.getMap());
+            final PublishingPipeline pipeline = new PublishingPipeline(imageModelMapper, contentMapper,
+                    mapStage, serializeStage, sendStage, environment.metrics());
+            return withAsyncPublishFailuresHealthcheck(environment, new NativeCmsPublicationEventsListener(config.getSystemCode(),
+                    contentMapper, objectMapper, publishingValidator, pipeline, environment.metrics()));
+        }
+        final WorkerPoolConfiguration workersConfig = config.getWorkerPoolConfiguration();
+        if (workersConfig != null) {
+            return withAsyncPublishFailuresHealthcheck(environment, new NativeCmsPublicationEventsListener(config.getSystemCode(),
+                    contentMapper, objectMapper, publishingValidator, createWorkers(environment, "listener", workersConfig),
+                    environment.metrics()));
+        }
+        return new NativeCmsPublicationEventsListener(config.getSystemCode(), contentMapper, objectMapper, publishingValidator,
+                environment.metrics());
+    }
+
+    private NativeCmsPublicationEventsListener withAsyncPublishFailuresHealthcheck(Environment environment,
+                                                                                   NativeCmsPublicationEventsListener listener) {
+        environment.healthChecks().register("AsyncPublishFailures", new AsyncPublishFailuresHealthcheck(
+                listener.getAsyncFailures(), ASYNC_PUBLISH_FAILURES_HEALTHCHECK,
+                ASYNC_PUBLISH_FAILURES_WINDOW_MINUTES, TimeUnit.MINUTES));
+        return listener;
+    }
+
+    private KeyOrderedExecutor createWorkers(Environment environment, String name, WorkerPoolConfiguration config) {
+        final KeyOrderedExecutor workers = new KeyOrderedExecutor(name, config.getLanes(), config.getQueueDepth(),
+                environment.metrics());
+        environment.lifecycle().manage(workers);
+        return workers;
+    }
+
     protected void startListener(Environment environment, MessageListener listener, ConsumerConfiguration config, Client consumerClient) {
         final MessageQueueConsumerInitializer messageQueueConsumerInitializer =
                 new MessageQueueConsumerInitializer(config.getMessageQueueConsumerConfiguration(),
@@ -124,6 +243,32 @@ public class MethodeImageModelMapperApplication extends Application<MethodeImage
         environment.lifecycle().manage(messageQueueConsumerInitializer);
     }
 
+    private AttributesExtractor createAttributesExtractor(AttributesExtractorType type) {
+        if (type == AttributesExtractorType.STAX) {
+            return new StaxAttributesExtractor();
+        }
+        return new DomAttributesExtractor();
+    }
+
+    private GraphicResolver createGraphicResolver(AttributesExtractor attributesExtractor,
+                                                  GraphicResolverCacheConfiguration cacheConfig,
+                                                  MetricRegistry metrics) {
+        final Set<String> cached = cacheConfig == null ? new HashSet<>() : new HashSet<>(cacheConfig.getResolvers());
+        final List<TypeResolver> resolvers = new ArrayList<>();
+        for (TypeResolver resolver : GraphicResolver.defaultResolvers()) {
+            if (cached.remove(resolver.getName())) {
+                resolvers.add(new CachingTypeResolver(resolver, cacheConfig.getMaximumSize(),
+                        cacheConfig.getTimeToLive().getQuantity(), cacheConfig.getTimeToLive().getUnit(), metrics));
+            } else {
+                resolvers.add(resolver);
+            }
+        }
+        if (!cached.isEmpty()) {
+            throw new IllegalArgumentException("Unknown graphicResolverCache.resolvers " + cached);
+        }
+        return new GraphicResolver(attributesExtractor, resolvers, metrics);
+    }
+
     private Client getConsumerClient(Environment environment, ConsumerConfiguration config) {
         JerseyClientConfiguration jerseyConfig = config.getJerseyClientConfiguration();
         jerseyConfig.setGzipEnabled(false);
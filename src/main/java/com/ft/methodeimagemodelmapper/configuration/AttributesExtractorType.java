@@ -0,0 +1,6 @@
+package com.ft.methodeimagemodelmapper.configuration;
+
+public enum AttributesExtractorType {
+    DOM,
+    STAX
+}
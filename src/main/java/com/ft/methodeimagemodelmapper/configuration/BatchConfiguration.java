@@ -0,0 +1,26 @@
+package com.ft.methodeimagemodelmapper.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class BatchConfiguration {
+
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_MAX_MESSAGES_PER_SEND = 100;
+
+    private final int parallelism;
+    private final int maxMessagesPerSend;
+
+    public BatchConfiguration(@JsonProperty("parallelism") Integer parallelism,
+                              @JsonProperty("maxMessagesPerSend") Integer maxMessagesPerSend) {
+        this.parallelism = parallelism == null ? DEFAULT_PARALLELISM : parallelism;
+        this.maxMessagesPerSend = maxMessagesPerSend == null ? DEFAULT_MAX_MESSAGES_PER_SEND : maxMessagesPerSend;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxMessagesPerSend() {
+        return maxMessagesPerSend;
+    }
+}
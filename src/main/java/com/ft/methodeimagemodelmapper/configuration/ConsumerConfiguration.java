@@ -5,22 +5,35 @@ import com.ft.message.consumer.config.HealthcheckConfiguration;
 import com.ft.message.consumer.config.MessageQueueConsumerConfiguration;
 import io.dropwizard.client.JerseyClientConfiguration;
 
+import javax.validation.Valid;
+
 public class ConsumerConfiguration {
 
     private final JerseyClientConfiguration jerseyConfig;
     private final MessageQueueConsumerConfiguration consumerConfig;
     private final HealthcheckConfiguration healthcheckConfig;
     private final String systemCode;
+    @Valid
+    private final WorkerPoolConfiguration workersConfig;
+    @Valid
+    private final PipelineConfiguration pipelineConfig;
+    private final DuplicateFilterConfiguration duplicateFilterConfig;
 
     public ConsumerConfiguration(@JsonProperty("jerseyClient") JerseyClientConfiguration jerseyConfig,
                                  @JsonProperty("messageConsumer") MessageQueueConsumerConfiguration consumerConfig,
                                  @JsonProperty("healthCheck") HealthcheckConfiguration healthCheckConfig,
-                                 @JsonProperty("systemCode") String systemCode) {
+                                 @JsonProperty("systemCode") String systemCode,
+                                 @JsonProperty("workers") WorkerPoolConfiguration workersConfig,
+                                 @JsonProperty("pipeline") PipelineConfiguration pipelineConfig,
+                                 @JsonProperty("duplicateFilter") DuplicateFilterConfiguration duplicateFilterConfig) {
 
         this.jerseyConfig = jerseyConfig;
         this.consumerConfig = consumerConfig;
         this.healthcheckConfig = healthCheckConfig;
         this.systemCode = systemCode;
+        this.workersConfig = workersConfig;
+        this.pipelineConfig = pipelineConfig;
+        this.duplicateFilterConfig = duplicateFilterConfig;
     }
 
     public JerseyClientConfiguration getJerseyClientConfiguration() {
@@ -38,4 +51,16 @@ public class ConsumerConfiguration {
     public String getSystemCode() {
         return systemCode;
     }
+
+    public WorkerPoolConfiguration getWorkerPoolConfiguration() {
+        return workersConfig;
+    }
+
+    public PipelineConfiguration getPipelineConfiguration() {
+        return pipelineConfig;
+    }
+
+    public DuplicateFilterConfiguration getDuplicateFilterConfiguration() {
+        return duplicateFilterConfig;
+    }
 }
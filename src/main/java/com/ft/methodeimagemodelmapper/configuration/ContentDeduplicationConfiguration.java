@@ -0,0 +1,25 @@
+package com.ft.methodeimagemodelmapper.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ContentDeduplicationConfiguration {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 100000;
+
+    private final long maximumSize;
+    private final boolean alwaysEmit;
+
+    public ContentDeduplicationConfiguration(@JsonProperty("maximumSize") Long maximumSize,
+                                             @JsonProperty("alwaysEmit") boolean alwaysEmit) {
+        this.maximumSize = maximumSize == null ? DEFAULT_MAXIMUM_SIZE : maximumSize;
+        this.alwaysEmit = alwaysEmit;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public boolean isAlwaysEmit() {
+        return alwaysEmit;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ft.methodeimagemodelmapper.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+public class DuplicateFilterConfiguration {
+
+    private static final Duration DEFAULT_WINDOW = Duration.minutes(10);
+    private static final long DEFAULT_MAXIMUM_SIZE = 100000;
+
+    private final Duration window;
+    private final long maximumSize;
+
+    public DuplicateFilterConfiguration(@JsonProperty("window") Duration window,
+                                        @JsonProperty("maximumSize") Long maximumSize) {
+        this.window = window == null ? DEFAULT_WINDOW : window;
+        this.maximumSize = maximumSize == null ? DEFAULT_MAXIMUM_SIZE : maximumSize;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+}
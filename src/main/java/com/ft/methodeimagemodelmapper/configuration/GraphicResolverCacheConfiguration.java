@@ -0,0 +1,37 @@
+package com.ft.methodeimagemodelmapper.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+import java.util.Collections;
+import java.util.List;
+
+public class GraphicResolverCacheConfiguration {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.hours(1);
+
+    private final long maximumSize;
+    private final Duration timeToLive;
+    private final List<String> resolvers;
+
+    public GraphicResolverCacheConfiguration(@JsonProperty("maximumSize") Long maximumSize,
+                                             @JsonProperty("timeToLive") Duration timeToLive,
+                                             @JsonProperty("resolvers") List<String> resolvers) {
+        this.maximumSize = maximumSize == null ? DEFAULT_MAXIMUM_SIZE : maximumSize;
+        this.timeToLive = timeToLive == null ? DEFAULT_TIME_TO_LIVE : timeToLive;
+        this.resolvers = resolvers == null ? Collections.<String>emptyList() : resolvers;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    public List<String> getResolvers() {
+        return resolvers;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ft.methodeimagemodelmapper.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+
+public class MessageBatchingConfiguration {
+
+    private static final int DEFAULT_MAX_MESSAGES = 100;
+    private static final Size DEFAULT_MAX_SIZE = Size.megabytes(1);
+    private static final Duration DEFAULT_LINGER = Duration.milliseconds(50);
+
+    private final int maxMessages;
+    private final Size maxSize;
+    private final Duration linger;
+
+    public MessageBatchingConfiguration(@JsonProperty("maxMessages") Integer maxMessages,
+                                        @JsonProperty("maxSize") Size maxSize,
+                                        @JsonProperty("linger") Duration linger) {
+        this.maxMessages = maxMessages == null ? DEFAULT_MAX_MESSAGES : maxMessages;
+        this.maxSize = maxSize == null ? DEFAULT_MAX_SIZE : maxSize;
+        this.linger = linger == null ? DEFAULT_LINGER : linger;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    public Size getMaxSize() {
+        return maxSize;
+    }
+
+    public Duration getLinger() {
+        return linger;
+    }
+}
@@ -5,15 +5,22 @@ import com.ft.platform.dropwizard.AppInfo;
 import com.ft.platform.dropwizard.ConfigWithAppInfo;
 import io.dropwizard.Configuration;
 
+import javax.validation.Valid;
+
 import java.util.List;
 
 public class MethodeImageModelMapperConfiguration extends Configuration implements ConfigWithAppInfo {
 
+    @Valid
     private final ConsumerConfiguration consumer;
     private final ProducerConfiguration producer;
     private final String contentUriPrefix;
     private final String externalBinaryUrlBasePath;
     private final List<String> externalBinaryUrlWhitelist;
+    private final AttributesExtractorType attributesExtractor;
+    private final GraphicResolverCacheConfiguration graphicResolverCache;
+    private final BatchConfiguration batch;
+    private final ContentDeduplicationConfiguration contentDeduplication;
 
     @JsonProperty
     private AppInfo appInfo = new AppInfo();
@@ -22,12 +29,20 @@ public class MethodeImageModelMapperConfiguration extends Configuration implemen
                                                 @JsonProperty("producer") ProducerConfiguration producer,
                                                 @JsonProperty("contentUriPrefix") String contentUriPrefix,
                                                 @JsonProperty("externalBinaryUrlBasePath") final String externalBinaryUrlBasePath,
-                                                @JsonProperty("externalBinaryUrlWhitelist") final List<String> externalBinaryUrlWhitelist) {
+                                                @JsonProperty("externalBinaryUrlWhitelist") final List<String> externalBinaryUrlWhitelist,
+                                                @JsonProperty("attributesExtractor") final AttributesExtractorType attributesExtractor,
+                                                @JsonProperty("graphicResolverCache") final GraphicResolverCacheConfiguration graphicResolverCache,
+                                                @JsonProperty("batch") final BatchConfiguration batch,
+                                                @JsonProperty("contentDeduplication") final ContentDeduplicationConfiguration contentDeduplication) {
         this.consumer = consumer;
         this.producer = producer;
         this.contentUriPrefix = contentUriPrefix;
         this.externalBinaryUrlBasePath = externalBinaryUrlBasePath;
         this.externalBinaryUrlWhitelist = externalBinaryUrlWhitelist;
+        this.attributesExtractor = attributesExtractor == null ? AttributesExtractorType.DOM : attributesExtractor;
+        this.graphicResolverCache = graphicResolverCache;
+        this.batch = batch == null ? new BatchConfiguration(null, null) : batch;
+        this.contentDeduplication = contentDeduplication;
     }
 
     public ConsumerConfiguration getConsumerConfiguration() {
@@ -50,6 +65,22 @@ public class MethodeImageModelMapperConfiguration extends Configuration implemen
         return externalBinaryUrlWhitelist;
     }
 
+    public AttributesExtractorType getAttributesExtractor() {
+        return attributesExtractor;
+    }
+
+    public GraphicResolverCacheConfiguration getGraphicResolverCache() {
+        return graphicResolverCache;
+    }
+
+    public BatchConfiguration getBatchConfiguration() {
+        return batch;
+    }
+
+    public ContentDeduplicationConfiguration getContentDeduplication() {
+        return contentDeduplication;
+    }
+
     @Override
     public AppInfo getAppInfo() {
         return appInfo;
@@ -0,0 +1,37 @@
+package com.ft.methodeimagemodelmapper.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.Valid;
+
+public class PipelineConfiguration {
+
+    @Valid
+    private final WorkerPoolConfiguration map;
+
+    @Valid
+    private final WorkerPoolConfiguration serialize;
+
+    @Valid
+    private final WorkerPoolConfiguration send;
+
+    public PipelineConfiguration(@JsonProperty("map") WorkerPoolConfiguration map,
+                                 @JsonProperty("serialize") WorkerPoolConfiguration serialize,
+                                 @JsonProperty("send") WorkerPoolConfiguration send) {
+        this.map = map == null ? new WorkerPoolConfiguration(null, null) : map;
+        this.serialize = serialize == null ? new WorkerPoolConfiguration(null, null) : serialize;
+        this.send = send == null ? new WorkerPoolConfiguration(null, null) : send;
+    }
+
+    public WorkerPoolConfiguration getMap() {
+        return map;
+    }
+
+    public WorkerPoolConfiguration getSerialize() {
+        return serialize;
+    }
+
+    public WorkerPoolConfiguration getSend() {
+        return send;
+    }
+}
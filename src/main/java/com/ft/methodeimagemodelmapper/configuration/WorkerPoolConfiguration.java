@@ -0,0 +1,31 @@
+package com.ft.methodeimagemodelmapper.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.Min;
+
+public class WorkerPoolConfiguration {
+
+    private static final int DEFAULT_LANES = 4;
+    private static final int DEFAULT_QUEUE_DEPTH = 100;
+
+    @Min(1)
+    private final int lanes;
+
+    @Min(1)
+    private final int queueDepth;
+
+    public WorkerPoolConfiguration(@JsonProperty("lanes") Integer lanes,
+                                   @JsonProperty("queueDepth") Integer queueDepth) {
+        this.lanes = lanes == null ? DEFAULT_LANES : lanes;
+        this.queueDepth = queueDepth == null ? DEFAULT_QUEUE_DEPTH : queueDepth;
+    }
+
+    public int getLanes() {
+        return lanes;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+}
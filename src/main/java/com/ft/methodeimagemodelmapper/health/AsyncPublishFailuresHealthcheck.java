@@ -0,0 +1,75 @@
+package com.ft.methodeimagemodelmapper.health;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Meter;
+import com.ft.platform.dropwizard.AdvancedHealthCheck;
+import com.ft.platform.dropwizard.AdvancedResult;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fails while messages consumed from Kafka have recently failed to publish after the consumer moved on, which only
+ * happens when they are handled by worker lanes or the publishing pipeline. Such messages are not redelivered, so
+ * they are lost unless republished. The check turns healthy again once <code>window</code> has passed without a new
+ * failure.
+ */
+public class AsyncPublishFailuresHealthcheck extends AdvancedHealthCheck {
+
+    private final Meter failures;
+    private final HealthcheckConfiguration healthcheckConfiguration;
+    private final long windowMillis;
+    private final Clock clock;
+    private long lastCount;
+    private long lastFailureMillis;
+
+    public AsyncPublishFailuresHealthcheck(final Meter failures, final HealthcheckConfiguration healthcheckConfiguration,
+                                           final long window, final TimeUnit windowUnit) {
+        this(failures, healthcheckConfiguration, window, windowUnit, Clock.defaultClock());
+    }
+
+    AsyncPublishFailuresHealthcheck(final Meter failures, final HealthcheckConfiguration healthcheckConfiguration,
+                                    final long window, final TimeUnit windowUnit, final Clock clock) {
+        super(healthcheckConfiguration.getName());
+        this.failures = failures;
+        this.healthcheckConfiguration = healthcheckConfiguration;
+        this.windowMillis = windowUnit.toMillis(window);
+        this.clock = clock;
+    }
+
+    @Override
+    protected synchronized AdvancedResult checkAdvanced() throws Exception {
+        final long count = failures.getCount();
+        final long now = clock.getTime();
+        if (count > lastCount) {
+            lastCount = count;
+            lastFailureMillis = now;
+        }
+        if (lastCount > 0 && now - lastFailureMillis < windowMillis) {
+            return AdvancedResult.error(this, String.format(
+                    "%d consumed messages have failed to publish since startup, the latest within the last %d seconds."
+                            + " They will not be redelivered; see the logs for their uuids and transaction ids.",
+                    count, TimeUnit.MILLISECONDS.toSeconds(windowMillis)));
+        }
+        return AdvancedResult.healthy();
+    }
+
+    @Override
+    protected int severity() {
+        return healthcheckConfiguration.getSeverity();
+    }
+
+    @Override
+    protected String businessImpact() {
+        return healthcheckConfiguration.getBusinessImpact();
+    }
+
+    @Override
+    protected String technicalSummary() {
+        return healthcheckConfiguration.getTechnicalSummary();
+    }
+
+    @Override
+    protected String panicGuideUrl() {
+        return healthcheckConfiguration.getPanicGuideUrl();
+    }
+}
@@ -0,0 +1,17 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.ft.message.consumer.MessageListener;
+import com.ft.messaging.standards.message.v1.Message;
+
+/**
+ * A listener that may finish processing a message after {@link #onMessage(Message, String)} has returned, for instance
+ * on a worker thread or once a batch of messages has been delivered.
+ */
+public interface AsyncMessageListener extends MessageListener {
+
+    /**
+     * @param onProcessed runs once the message has been processed successfully, possibly later and on another thread;
+     *                    it does not run if processing fails
+     */
+    boolean onMessage(Message message, String transactionId, Runnable onProcessed);
+}
@@ -0,0 +1,181 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.ft.messagequeueproducer.MessageProducer;
+import com.ft.messagequeueproducer.model.KeyedMessage;
+import com.ft.messaging.standards.message.v1.Message;
+import com.google.common.base.Utf8;
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.ft.api.util.transactionid.TransactionIdUtils.TRANSACTION_ID_HEADER;
+
+/**
+ * Collects messages and hands them to the delegate producer in one call once <code>maxMessages</code> or
+ * <code>maxBytes</code> of message bodies are pending, or once the oldest pending message has waited <code>linger</code>.
+ * Sends never fail towards the caller: if a batch cannot be published, each of its messages is logged as failed and
+ * counted, so none is dropped silently. Callers that need to know when a message has actually been published pass a
+ * callback to {@link #send(Message, Runnable)}. Messages are queued without waiting for a batch being published, unless
+ * they fill a batch while an earlier one is still being published.
+ */
+public class BatchingMessageProducer implements DeliveryAwareMessageProducer, Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchingMessageProducer.class);
+
+    private final MessageProducer delegate;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long lingerMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Histogram batchSize;
+    private final Histogram batchBytes;
+    private final Histogram linger;
+    private final Meter failedMessages;
+    private final Object sendLock = new Object();
+
+    private List<Message> pending = new ArrayList<>();
+    private List<Runnable> pendingCallbacks = new ArrayList<>();
+    private long pendingBytes;
+    private long oldestPendingNanos;
+    private long generation;
+
+    public BatchingMessageProducer(final MessageProducer delegate, final int maxMessages, final long maxBytes,
+                                   final long lingerMillis, final ScheduledExecutorService scheduler,
+                                   final MetricRegistry metrics) {
+        this.delegate = delegate;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.lingerMillis = lingerMillis;
+        this.scheduler = scheduler;
+        this.batchSize = metrics.histogram(MetricRegistry.name(BatchingMessageProducer.class, "batch-size"));
+        this.batchBytes = metrics.histogram(MetricRegistry.name(BatchingMessageProducer.class, "batch-bytes"));
+        this.linger = metrics.histogram(MetricRegistry.name(BatchingMessageProducer.class, "linger"));
+        this.failedMessages = metrics.meter(MetricRegistry.name(BatchingMessageProducer.class, "failed-messages"));
+    }
+
+    @Override
+    public void send(final List<Message> messages) {
+        for (Message message : messages) {
+            send(message, null);
+        }
+    }
+
+    /**
+     * Queues the message, and runs <code>onDelivered</code> on the flushing thread once the batch holding it has been
+     * published. It is not run if the batch fails.
+     */
+    @Override
+    public void send(final Message message, final Runnable onDelivered) {
+        if (add(message, onDelivered)) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends whatever is pending, regardless of the batch limits.
+     */
+    public void flush() {
+        flush(null);
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        flush();
+    }
+
+    /**
+     * @return whether the batch is full
+     */
+    private synchronized boolean add(final Message message, final Runnable onDelivered) {
+        if (pending.isEmpty()) {
+            startBatch();
+        }
+        pending.add(message);
+        if (onDelivered != null) {
+            pendingCallbacks.add(onDelivered);
+        }
+        pendingBytes += message.getMessageBody() == null ? 0 : Utf8.encodedLength(message.getMessageBody());
+        return pending.size() >= maxMessages || pendingBytes >= maxBytes;
+    }
+
+    private void startBatch() {
+        oldestPendingNanos = System.nanoTime();
+        final long batchGeneration = generation;
+        scheduler.schedule(() -> flush(batchGeneration), lingerMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes the pending batch, unless <code>batchGeneration</code> is given and that batch has already been taken, and
+     * publishes it. Batches are taken and published under a lock of their own, so they are published in order while
+     * callers keep queuing messages.
+     */
+    private void flush(final Long batchGeneration) {
+        synchronized (sendLock) {
+            final Batch batch = take(batchGeneration);
+            if (batch != null) {
+                publish(batch);
+            }
+        }
+    }
+
+    private synchronized Batch take(final Long batchGeneration) {
+        if (pending.isEmpty() || batchGeneration != null && batchGeneration != generation) {
+            return null;
+        }
+        final Batch batch = new Batch(pending, pendingCallbacks);
+        batchSize.update(pending.size());
+        batchBytes.update(pendingBytes);
+        linger.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestPendingNanos));
+        pending = new ArrayList<>();
+        pendingCallbacks = new ArrayList<>();
+        pendingBytes = 0;
+        generation++;
+        return batch;
+    }
+
+    private void publish(final Batch batch) {
+        try {
+            delegate.send(batch.messages);
+        } catch (RuntimeException e) {
+            failedMessages.mark(batch.messages.size());
+            LOG.error("Failed to publish batch of {} messages", batch.messages.size(), e);
+            for (Message message : batch.messages) {
+                LOG.error("Message not published: messageId={} uuid={} transactionId={}", message.getMessageId(),
+                        message instanceof KeyedMessage ? ((KeyedMessage) message).getKey() : null,
+                        message.getCustomMessageHeader(TRANSACTION_ID_HEADER));
+            }
+            return;
+        }
+        LOG.info("sent {} messages", batch.messages.size());
+        for (Runnable callback : batch.callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                LOG.warn("Delivery callback failed", e);
+            }
+        }
+    }
+
+    private static final class Batch {
+
+        private final List<Message> messages;
+        private final List<Runnable> callbacks;
+
+        Batch(final List<Message> messages, final List<Runnable> callbacks) {
+            this.messages = messages;
+            this.callbacks = callbacks;
+        }
+    }
+}
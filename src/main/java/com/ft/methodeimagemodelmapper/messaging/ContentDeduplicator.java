@@ -0,0 +1,148 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ft.content.model.Content;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+
+/**
+ * Remembers, per content uuid, a hash of the last published image model without its volatile fields, and skips
+ * publishing a model whose hash has not changed. A model is only skipped once the message for the last published one
+ * has been delivered, so a model whose delivery failed or is still pending, for instance in a batch, is published
+ * again. Publishing for the same uuid is serialised on a striped
+ * lock so that two versions cannot both pass the check at once. With <code>alwaysEmit</code> every model is published,
+ * and unchanged ones are only counted.
+ */
+public class ContentDeduplicator {
+
+    static final List<String> VOLATILE_FIELDS = Arrays.asList("publishReference", "lastModified");
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContentDeduplicator.class);
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    private static final int LOCK_STRIPES = 64;
+
+    private final ObjectMapper objectMapper;
+    private final boolean alwaysEmit;
+    private final Cache<String, Published> publishedHashes;
+    private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+    private final Meter unchanged;
+    private final Meter suppressed;
+    private final Meter published;
+
+    public ContentDeduplicator(final ObjectMapper objectMapper, final long maximumSize, final boolean alwaysEmit,
+                               final MetricRegistry metrics) {
+        this.objectMapper = objectMapper;
+        this.alwaysEmit = alwaysEmit;
+        this.publishedHashes = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .concurrencyLevel(LOCK_STRIPES)
+                .build();
+        this.unchanged = metrics.meter(MetricRegistry.name(ContentDeduplicator.class, "unchanged"));
+        this.suppressed = metrics.meter(MetricRegistry.name(ContentDeduplicator.class, "suppressed"));
+        this.published = metrics.meter(MetricRegistry.name(ContentDeduplicator.class, "published"));
+        final String suppressionRate = MetricRegistry.name(ContentDeduplicator.class, "suppression-rate");
+        if (!metrics.getGauges().containsKey(suppressionRate)) {
+            metrics.register(suppressionRate, new RatioGauge() {
+                @Override
+                protected Ratio getRatio() {
+                    return Ratio.of(suppressed.getCount(), suppressed.getCount() + published.getCount());
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs <code>publish</code> unless the content is unchanged since it was last published. The content counts as
+     * delivered once <code>publish</code> returns.
+     *
+     * @return whether the content was published
+     */
+    public boolean publishIfChanged(final Content content, final Runnable publish) {
+        return publishIfChanged(content, delivered -> {
+            publish.run();
+            delivered.run();
+        });
+    }
+
+    /**
+     * Runs <code>publish</code> unless the content is unchanged since it was last delivered. <code>publish</code> is
+     * given a callback to run once its message has been delivered, which may be after it returns and on another thread.
+     *
+     * @return whether the content was published
+     */
+    public boolean publishIfChanged(final Content content, final Consumer<Runnable> publish) {
+        final HashCode hash = hash(content);
+        if (hash == null || content.getUuid() == null) {
+            publish.accept(() -> {
+            });
+            published.mark();
+            return true;
+        }
+        final String uuid = content.getUuid();
+        final Lock lock = locks.get(uuid);
+        lock.lock();
+        try {
+            final Published last = publishedHashes.getIfPresent(uuid);
+            if (last != null && last.delivered && last.hash.equals(hash)) {
+                unchanged.mark();
+                if (!alwaysEmit) {
+                    suppressed.mark();
+                    LOG.info("Skipped publishing unchanged content [{}] publishReference={}", content.getUuid(), content.getPublishReference());
+                    return false;
+                }
+            }
+            final Published sent = new Published(hash);
+            publishedHashes.put(uuid, sent);
+            publish.accept(() -> sent.delivered = true);
+            published.mark();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the hash for content published without going through {@link #publishIfChanged}, so that its next version
+     * is compared against nothing rather than against a stale model.
+     */
+    public void forget(final String uuid) {
+        publishedHashes.invalidate(uuid);
+    }
+
+    HashCode hash(final Content content) {
+        final ObjectNode model = objectMapper.valueToTree(content);
+        model.remove(VOLATILE_FIELDS);
+        try {
+            return HASH.hashBytes(objectMapper.writeValueAsBytes(model));
+        } catch (JsonProcessingException e) {
+            LOG.warn("Unable to hash content [{}], publishing it regardless", content.getUuid(), e);
+            return null;
+        }
+    }
+
+    private static final class Published {
+
+        private final HashCode hash;
+        private volatile boolean delivered;
+
+        Published(final HashCode hash) {
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.ft.content.model.Content;
+
+import java.io.IOException;
+
+/**
+ * The body of a published message. It writes its fields straight to the generator, in the same order and form as the
+ * map it replaces, so the content is serialized into the envelope without an intermediate map.
+ */
+class ContentEnvelope implements JsonSerializable {
+
+    static final String DESTINATION = "methode-image-model-transformer";
+
+    private final String contentUri;
+    private final String relativeUrl;
+    private final Content payload;
+    private final String lastModified;
+
+    ContentEnvelope(final String contentUri, final String relativeUrl, final Content payload, final String lastModified) {
+        this.contentUri = contentUri;
+        this.relativeUrl = relativeUrl;
+        this.payload = payload;
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public void serialize(final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("contentUri", contentUri);
+        generator.writeStringField("uuid", payload.getUuid());
+        generator.writeStringField("relativeUrl", relativeUrl);
+        generator.writeStringField("destination", DESTINATION);
+        provider.defaultSerializeField("payload", payload, generator);
+        generator.writeStringField("lastModified", lastModified);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(final JsonGenerator generator, final SerializerProvider provider,
+                                  final TypeSerializer typeSerializer) throws IOException {
+        serialize(generator, provider);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import javax.ws.rs.core.UriBuilder;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Builds the absolute and relative content URIs for a uuid by concatenation, from a template expanded once up front.
+ * The template is only used if it expands a sample uuid exactly like the {@link UriBuilder} does, and only for uuids
+ * made of characters that never need encoding; anything else falls back to the builder.
+ */
+class ContentUriTemplate {
+
+    private final UriBuilder contentUriBuilder;
+    private final String contentUriPrefix;
+    private final String contentUriSuffix;
+    private final String relativeUrlPrefix;
+    private final String relativeUrlSuffix;
+    private final boolean templated;
+
+    ContentUriTemplate(final UriBuilder contentUriBuilder) {
+        this.contentUriBuilder = contentUriBuilder;
+        final String marker = UUID.randomUUID().toString();
+        final String contentUri = contentUriBuilder.build(marker).toString();
+        final String relativeUrl = relativeUrl(URI.create(contentUri));
+        final int contentUriMarker = contentUri.indexOf(marker);
+        final int relativeUrlMarker = relativeUrl.indexOf(marker);
+        if (contentUriMarker < 0 || relativeUrlMarker < 0) {
+            this.contentUriPrefix = this.contentUriSuffix = this.relativeUrlPrefix = this.relativeUrlSuffix = null;
+            this.templated = false;
+            return;
+        }
+        this.contentUriPrefix = contentUri.substring(0, contentUriMarker);
+        this.contentUriSuffix = contentUri.substring(contentUriMarker + marker.length());
+        this.relativeUrlPrefix = relativeUrl.substring(0, relativeUrlMarker);
+        this.relativeUrlSuffix = relativeUrl.substring(relativeUrlMarker + marker.length());
+        this.templated = expandsLikeBuilder(UUID.randomUUID().toString());
+    }
+
+    String contentUri(final String uuid) {
+        if (templated && isPlain(uuid)) {
+            return contentUriPrefix + uuid + contentUriSuffix;
+        }
+        return contentUriBuilder.build(uuid).toString();
+    }
+
+    String relativeUrl(final String uuid) {
+        if (templated && isPlain(uuid)) {
+            return relativeUrlPrefix + uuid + relativeUrlSuffix;
+        }
+        return relativeUrl(contentUriBuilder.build(uuid));
+    }
+
+    boolean isTemplated() {
+        return templated;
+    }
+
+    private boolean expandsLikeBuilder(final String uuid) {
+        final URI expected = contentUriBuilder.build(uuid);
+        return expected.toString().equals(contentUriPrefix + uuid + contentUriSuffix)
+                && relativeUrl(expected).equals(relativeUrlPrefix + uuid + relativeUrlSuffix);
+    }
+
+    private static String relativeUrl(final URI contentUri) {
+        return UriBuilder.fromPath(contentUri.getPath()).replaceQuery(contentUri.getQuery()).build().toString();
+    }
+
+    private static boolean isPlain(final String uuid) {
+        if (uuid == null || uuid.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < uuid.length(); i++) {
+            final char c = uuid.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
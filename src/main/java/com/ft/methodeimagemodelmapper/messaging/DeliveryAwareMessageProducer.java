@@ -0,0 +1,32 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.ft.messagequeueproducer.MessageProducer;
+import com.ft.messaging.standards.message.v1.Message;
+
+import java.util.Collections;
+
+/**
+ * A producer that tells its caller when a message has actually been published, which may be after
+ * {@link #send(Message, Runnable)} has returned, for instance once a batch of messages has been sent.
+ */
+public interface DeliveryAwareMessageProducer extends MessageProducer {
+
+    /**
+     * Sends the message, and runs <code>onDelivered</code> once it has been published. It does not run if publishing
+     * fails. By default the message is published straight away.
+     */
+    default void send(Message message, Runnable onDelivered) {
+        send(Collections.singletonList(message));
+        onDelivered.run();
+    }
+
+    /**
+     * The producer itself if it already tells when messages are published, or else one that publishes through it
+     * straight away.
+     */
+    static DeliveryAwareMessageProducer of(MessageProducer producer) {
+        return producer instanceof DeliveryAwareMessageProducer
+                ? (DeliveryAwareMessageProducer) producer
+                : new DirectMessageProducer(producer);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.ft.messagequeueproducer.MessageProducer;
+import com.ft.messaging.standards.message.v1.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Publishes every call straight away through the delegate producer.
+ */
+class DirectMessageProducer implements DeliveryAwareMessageProducer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DirectMessageProducer.class);
+
+    private final MessageProducer delegate;
+
+    DirectMessageProducer(final MessageProducer delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void send(final List<Message> messages) {
+        delegate.send(messages);
+        LOG.info("sent {} messages", messages.size());
+    }
+}
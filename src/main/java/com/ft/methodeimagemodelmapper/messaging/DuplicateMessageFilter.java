@@ -0,0 +1,68 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.ft.message.consumer.MessageListener;
+import com.ft.messaging.standards.message.v1.Message;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops redelivered messages before they reach the delegate listener. Ids of messages the delegate has processed are
+ * remembered for <code>window</code>, up to <code>maximumSize</code> ids. An {@link AsyncMessageListener} delegate
+ * reports when it has processed a message, so an id is only remembered once its message has been published, and a
+ * message that failed on a worker can still be redelivered. The set is exact, so a new message is never
+ * mistaken for a duplicate; when it is full the oldest ids are forgotten early and the <code>evicted</code> meter shows
+ * how often the window was cut short.
+ */
+public class DuplicateMessageFilter implements MessageListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DuplicateMessageFilter.class);
+
+    private final MessageListener delegate;
+    private final Cache<UUID, Boolean> seen;
+    private final Meter duplicates;
+    private final Meter evicted;
+
+    public DuplicateMessageFilter(final MessageListener delegate, final long window, final TimeUnit windowUnit,
+                                  final long maximumSize, final MetricRegistry metrics) {
+        this.delegate = delegate;
+        this.duplicates = metrics.meter(MetricRegistry.name(DuplicateMessageFilter.class, "duplicates"));
+        this.evicted = metrics.meter(MetricRegistry.name(DuplicateMessageFilter.class, "evicted"));
+        this.seen = CacheBuilder.newBuilder()
+                .expireAfterWrite(window, windowUnit)
+                .maximumSize(maximumSize)
+                .<UUID, Boolean>removalListener(notification -> {
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        evicted.mark();
+                    }
+                })
+                .build();
+        metrics.register(MetricRegistry.name(DuplicateMessageFilter.class, "size"), (Gauge<Long>) seen::size);
+    }
+
+    @Override
+    public boolean onMessage(final Message message, final String transactionId) {
+        final UUID messageId = message.getMessageId();
+        if (messageId != null && seen.getIfPresent(messageId) != null) {
+            duplicates.mark();
+            LOG.info("Skip redelivered message [{}] transactionId={}", messageId, transactionId);
+            return true;
+        }
+        if (messageId != null && delegate instanceof AsyncMessageListener) {
+            return ((AsyncMessageListener) delegate).onMessage(message, transactionId, () -> seen.put(messageId, Boolean.TRUE));
+        }
+        final boolean processed = delegate.onMessage(message, transactionId);
+        if (processed && messageId != null) {
+            seen.put(messageId, Boolean.TRUE);
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,102 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on a fixed number of single-threaded lanes. Tasks with the same key always land on the same lane, so they
+ * run one after another in submission order, while tasks for different keys run in parallel. Each lane queues up to
+ * <code>queueDepth</code> tasks; once a lane is full, {@link #execute(String, Runnable)} blocks the submitter.
+ */
+public class KeyOrderedExecutor implements Managed {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final List<ThreadPoolExecutor> lanes;
+    private final List<Meter> submitted;
+
+    public KeyOrderedExecutor(final String name, final int laneCount, final int queueDepth, final MetricRegistry metrics) {
+        final ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat(name + "-lane-%d").build();
+        this.lanes = new ArrayList<>(laneCount);
+        this.submitted = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            final ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueDepth), threadFactory, KeyOrderedExecutor::waitForRoom);
+            lanes.add(lane);
+            submitted.add(metrics.meter(MetricRegistry.name(KeyOrderedExecutor.class, name, "lane-" + i, "submitted")));
+            metrics.register(MetricRegistry.name(KeyOrderedExecutor.class, name, "lane-" + i, "queue-depth"),
+                    (Gauge<Integer>) () -> lane.getQueue().size());
+        }
+        metrics.register(MetricRegistry.name(KeyOrderedExecutor.class, name, "queue-depth"), (Gauge<Integer>) this::getQueueDepth);
+        metrics.register(MetricRegistry.name(KeyOrderedExecutor.class, name, "lane-imbalance"), (Gauge<Integer>) this::getLaneImbalance);
+    }
+
+    public void execute(final String key, final Runnable task) {
+        final int lane = laneFor(key);
+        submitted.get(lane).mark();
+        lanes.get(lane).execute(task);
+    }
+
+    int laneFor(final String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % lanes.size();
+    }
+
+    int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * The difference in queued tasks between the busiest and the idlest lane.
+     */
+    int getLaneImbalance() {
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            final int depth = lane.getQueue().size();
+            min = Math.min(min, depth);
+            max = Math.max(max, depth);
+        }
+        return max - min;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void waitForRoom(final Runnable task, final ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw new RejectedExecutionException("Lane has been shut down");
+        }
+        try {
+            lane.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for room in lane", e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.ft.methodeimagemodelmapper.messaging;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.ft.content.model.Content;
 import com.ft.messagequeueproducer.MessageProducer;
 import com.ft.messagequeueproducer.model.KeyedMessage;
@@ -13,12 +16,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.core.UriBuilder;
-import java.net.URI;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.ResolverStyle;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 import static com.ft.api.util.transactionid.TransactionIdUtils.TRANSACTION_ID_HEADER;
 import static java.time.ZoneOffset.UTC;
@@ -29,41 +31,175 @@ public class MessageProducingContentMapper {
     private static final String CMS_CONTENT_PUBLISHED = "cms-content-published";
     private static final DateTimeFormatter RFC3339_FMT =
             DateTimeFormatter.ISO_OFFSET_DATE_TIME.withResolverStyle(ResolverStyle.STRICT);
+    private static final Runnable NOTHING = () -> {
+    };
 
     private final MethodeImageModelMapper delegate;
-    private final MessageProducer producer;
-    private final ObjectMapper objectMapper;
+    private final DeliveryAwareMessageProducer producer;
+    private final ObjectWriter envelopeWriter;
     private final String systemId;
-    private final UriBuilder contentUriBuilder;
+    private final ContentUriTemplate contentUriTemplate;
+    private final ContentDeduplicator deduplicator;
+    private final PublishLagRecorder lagRecorder;
+    private final Timer serializeTimer;
+    private final Timer sendTimer;
 
     public MessageProducingContentMapper(MethodeImageModelMapper delegate, ObjectMapper objectMapper, String systemId,
                                          MessageProducer producer, UriBuilder contentUriBuilder) {
+        this(delegate, objectMapper, systemId, producer, contentUriBuilder, null);
+    }
+
+    /**
+     * @param deduplicator suppresses messages for unchanged content, or <code>null</code> to always publish
+     */
+    public MessageProducingContentMapper(MethodeImageModelMapper delegate, ObjectMapper objectMapper, String systemId,
+                                         MessageProducer producer, UriBuilder contentUriBuilder, ContentDeduplicator deduplicator) {
+        this(delegate, objectMapper, systemId, producer, contentUriBuilder, deduplicator, new MetricRegistry());
+    }
+
+    public MessageProducingContentMapper(MethodeImageModelMapper delegate, ObjectMapper objectMapper, String systemId,
+                                         MessageProducer producer, UriBuilder contentUriBuilder, ContentDeduplicator deduplicator,
+                                         MetricRegistry metrics) {
+        this(delegate, objectMapper, systemId, producer, contentUriBuilder, deduplicator, null, metrics);
+    }
+
+    /**
+     * @param lagRecorder records the lag from native publication to each published message,
+     *                    or <code>null</code> when the content does not come from a native publication event
+     */
+    public MessageProducingContentMapper(MethodeImageModelMapper delegate, ObjectMapper objectMapper, String systemId,
+                                         MessageProducer producer, UriBuilder contentUriBuilder, ContentDeduplicator deduplicator,
+                                         PublishLagRecorder lagRecorder, MetricRegistry metrics) {
         this.delegate = delegate;
-        this.objectMapper = objectMapper;
+        this.envelopeWriter = objectMapper.writerWithType(ContentEnvelope.class);
         this.systemId = systemId;
-        this.producer = producer;
-        this.contentUriBuilder = contentUriBuilder;
+        this.producer = DeliveryAwareMessageProducer.of(producer);
+        this.contentUriTemplate = new ContentUriTemplate(contentUriBuilder);
+        this.deduplicator = deduplicator;
+        this.lagRecorder = lagRecorder;
+        this.serializeTimer = metrics.timer(MetricRegistry.name(MessageProducingContentMapper.class, "serialize"));
+        this.sendTimer = metrics.timer(MetricRegistry.name(MessageProducingContentMapper.class, "send"));
     }
 
     public Content mapImageModel(EomFile eomFile, String transactionId, Date lastModifiedDate) {
-        List<Content> contents = Collections.singletonList(delegate.mapImageModel(eomFile, transactionId, lastModifiedDate));
-        producer.send(contents.stream().map(this::createMessage).collect(Collectors.toList()));
-        LOG.info("sent {} messages", contents.size());
-        return contents.get(0);
+        return mapImageModel(eomFile, transactionId, lastModifiedDate, NOTHING);
+    }
+
+    /**
+     * @param onPublished runs once the message has been delivered, or straight away if unchanged content is not published
+     */
+    public Content mapImageModel(EomFile eomFile, String transactionId, Date lastModifiedDate, Runnable onPublished) {
+        Content content = delegate.mapImageModel(eomFile, transactionId, lastModifiedDate);
+        publish(content, () -> createMessage(content), onPublished);
+        return content;
+    }
+
+    /**
+     * Maps and sends the content even if it is unchanged since it was last published, as a manual republish does, in
+     * the same way as {@link #send(List)}.
+     */
+    public Content republishImageModel(EomFile eomFile, String transactionId, Date lastModifiedDate) {
+        Content content = delegate.mapImageModel(eomFile, transactionId, lastModifiedDate);
+        send(Collections.singletonList(createMessage(content)));
+        return content;
+    }
+
+    /**
+     * Sends the message for the content, unless the content is unchanged since it was last published.
+     */
+    public void publish(Content content, Supplier<Message> message) {
+        publish(content, message, NOTHING);
+    }
+
+    /**
+     * @param onPublished runs once the message has been delivered, or straight away if unchanged content is not published
+     */
+    public void publish(Content content, Supplier<Message> message, Runnable onPublished) {
+        if (deduplicator == null) {
+            send(content, message.get(), onPublished);
+        } else if (!deduplicator.publishIfChanged(content, delivered -> send(content, message.get(), () -> {
+            delivered.run();
+            onPublished.run();
+        }))) {
+            onPublished.run();
+        }
+    }
+
+    /**
+     * Checks the content against the deduplicator and creates its message, but leaves the send to the caller, for
+     * instance to run it on another thread. Sends for the same uuid must run in the order they were prepared.
+     *
+     * @param onPublished runs once the message has been delivered, or straight away if unchanged content is not published
+     * @return the send, or <code>null</code> if the content is unchanged
+     */
+    public Runnable prepareSend(Content content, Runnable onPublished) {
+        if (deduplicator == null) {
+            final Message message = createMessage(content);
+            return () -> send(content, message, onPublished);
+        }
+        final List<Runnable> sends = new ArrayList<>(1);
+        if (!deduplicator.publishIfChanged(content, delivered -> {
+            final Message message = createMessage(content);
+            sends.add(() -> send(content, message, () -> {
+                delivered.run();
+                onPublished.run();
+            }));
+        })) {
+            onPublished.run();
+            return null;
+        }
+        return sends.get(0);
+    }
+
+    /**
+     * Runs <code>onDelivered</code>, and records the publish lag, once the message has been published, which a
+     * {@link BatchingMessageProducer} only knows when it flushes the batch holding it.
+     */
+    private void send(Content content, Message message, Runnable onDelivered) {
+        final Runnable delivered = lagRecorder == null ? onDelivered : () -> {
+            onDelivered.run();
+            lagRecorder.record(content);
+        };
+        try (Timer.Context ignored = sendTimer.time()) {
+            producer.send(message, delivered);
+        }
+    }
+
+    /**
+     * Sends messages created by {@link #createMessage(Content)} in a single producer call. These bypass the
+     * deduplicator, so it forgets what it last published for their uuids.
+     */
+    public void send(List<Message> messages) {
+        try {
+            produce(messages);
+        } finally {
+            if (deduplicator != null) {
+                for (Message message : messages) {
+                    if (message instanceof KeyedMessage) {
+                        deduplicator.forget(((KeyedMessage) message).getKey());
+                    }
+                }
+            }
+        }
+    }
+
+    private void produce(List<Message> messages) {
+        try (Timer.Context ignored = sendTimer.time()) {
+            producer.send(messages);
+        }
+    }
+
+    public Message createMessage(Content content) {
+        try (Timer.Context ignored = serializeTimer.time()) {
+            return buildMessage(content);
+        }
     }
 
-    private Message createMessage(Content content) {
-        LOG.info("Last Modified Date is: " + content.getLastModified());
-        Map<String, Object> messageBody = new LinkedHashMap<>();
-        URI contentUri = contentUriBuilder.build(content.getUuid());
-        messageBody.put("contentUri", contentUri.toString());
-        messageBody.put("uuid", content.getUuid());
-        URI relativeUrl = UriBuilder.fromPath(contentUri.getPath()).replaceQuery(contentUri.getQuery()).build();
-        messageBody.put("relativeUrl", relativeUrl);
-        messageBody.put("destination", "methode-image-model-transformer");
-        messageBody.put("payload", content);
+    private Message buildMessage(Content content) {
+        LOG.info("Last Modified Date is: {}", content.getLastModified());
         String lastModified = RFC3339_FMT.format(OffsetDateTime.ofInstant(content.getLastModified().toInstant(), UTC));
-        messageBody.put("lastModified", lastModified);
+        ContentEnvelope messageBody = new ContentEnvelope(contentUriTemplate.contentUri(content.getUuid()),
+                contentUriTemplate.relativeUrl(content.getUuid()), content, lastModified);
 
         Message msg;
         try {
@@ -72,7 +208,7 @@ public class MessageProducingContentMapper {
                     .withMessageTimestamp(new Date())
                     .withOriginSystemId(systemId)
                     .withContentType("application/json")
-                    .withMessageBody(objectMapper.writeValueAsString(messageBody))
+                    .withMessageBody(envelopeWriter.writeValueAsString(messageBody))
                     .build();
 
             msg.addCustomMessageHeader(TRANSACTION_ID_HEADER, content.getPublishReference());
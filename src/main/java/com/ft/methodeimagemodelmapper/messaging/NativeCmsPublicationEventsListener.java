@@ -1,10 +1,17 @@
 package com.ft.methodeimagemodelmapper.messaging;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ft.message.consumer.MessageListener;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.ft.messaging.standards.message.v1.Message;
 import com.ft.messaging.standards.message.v1.SystemId;
+import com.ft.methodeimagemodelmapper.exception.ContentMapperException;
 import com.ft.methodeimagemodelmapper.exception.IngesterException;
+import com.ft.methodeimagemodelmapper.exception.MethodeContentNotSupportedException;
+import com.ft.methodeimagemodelmapper.exception.TransformationException;
 import com.ft.methodeimagemodelmapper.model.EomFile;
 import com.ft.methodeimagemodelmapper.validation.PublishingValidator;
 import com.ft.uuidutils.UUIDValidation;
@@ -12,51 +19,197 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.function.Predicate;
 
-public class NativeCmsPublicationEventsListener implements MessageListener {
+/**
+ * Maps Methode image events to image model messages. By default each event is mapped and published on the consumer
+ * thread, and a failure is thrown back to the consumer. With worker lanes or a publishing pipeline, an event is
+ * acknowledged as soon as it is queued: delivery is then at most once, and a failure that happens later is logged,
+ * counted under <code>failed.*</code> and marked on the <code>async-failures</code> meter, but not redelivered.
+ * Either way, the <code>onProcessed</code> callback only runs once the message has been delivered or skipped.
+ */
+public class NativeCmsPublicationEventsListener implements AsyncMessageListener {
 
     private static final Logger LOG = LoggerFactory.getLogger(NativeCmsPublicationEventsListener.class);
+    private static final Runnable NOTHING = () -> {
+    };
 
     private final Predicate<Message> filter;
     private final MessageProducingContentMapper mapper;
-    private final ObjectMapper objectMapper;
+    private final ObjectReader eomFileReader;
     private final SystemId systemId;
     private final PublishingValidator publishingValidator;
+    private final KeyOrderedExecutor workers;
+    private final PublishingPipeline pipeline;
+    private final Timer deserializeTimer;
+    private final Timer validateTimer;
+    private final Counter skippedOtherSystem;
+    private final Counter skippedNotPublishable;
+    private final Counter failedUnparseable;
+    private final Counter failedInvalidUuid;
+    private final Counter skippedUnsupported;
+    private final Counter failedTransformation;
+    private final Counter failedSerialization;
+    private final Counter failedOther;
+    private final Meter asyncFailures;
 
     public NativeCmsPublicationEventsListener(String systemCode, MessageProducingContentMapper mapper, ObjectMapper objectMapper,
                                               PublishingValidator publishingValidator) {
+        this(systemCode, mapper, objectMapper, publishingValidator, new MetricRegistry());
+    }
+
+    public NativeCmsPublicationEventsListener(String systemCode, MessageProducingContentMapper mapper, ObjectMapper objectMapper,
+                                              PublishingValidator publishingValidator, MetricRegistry metrics) {
+        this(systemCode, mapper, objectMapper, publishingValidator, null, null, metrics);
+    }
+
+    /**
+     * @param workers maps and publishes messages off the consumer thread, keyed by content uuid, after they have been
+     *                acknowledged
+     */
+    public NativeCmsPublicationEventsListener(String systemCode, MessageProducingContentMapper mapper, ObjectMapper objectMapper,
+                                              PublishingValidator publishingValidator, KeyOrderedExecutor workers,
+                                              MetricRegistry metrics) {
+        this(systemCode, mapper, objectMapper, publishingValidator, workers, null, metrics);
+    }
+
+    /**
+     * @param pipeline maps, serializes and sends messages in separate stages off the consumer thread
+     */
+    public NativeCmsPublicationEventsListener(String systemCode, MessageProducingContentMapper mapper, ObjectMapper objectMapper,
+                                              PublishingValidator publishingValidator, PublishingPipeline pipeline,
+                                              MetricRegistry metrics) {
+        this(systemCode, mapper, objectMapper, publishingValidator, null, pipeline, metrics);
+    }
+
+    private NativeCmsPublicationEventsListener(String systemCode, MessageProducingContentMapper mapper, ObjectMapper objectMapper,
+                                               PublishingValidator publishingValidator, KeyOrderedExecutor workers,
+                                               PublishingPipeline pipeline, MetricRegistry metrics) {
         this.systemId = SystemId.systemIdFromCode(systemCode);
         this.filter = msg -> (systemId.equals(msg.getOriginSystemId()));
         this.mapper = mapper;
-        this.objectMapper = objectMapper;
+        this.eomFileReader = objectMapper.reader(EomFile.class);
         this.publishingValidator = publishingValidator;
+        this.workers = workers;
+        this.pipeline = pipeline;
+        this.deserializeTimer = metrics.timer(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "deserialize"));
+        this.validateTimer = metrics.timer(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "validate"));
+        this.skippedOtherSystem = metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "skipped", "other-system"));
+        this.skippedNotPublishable = metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "skipped", "not-publishable"));
+        this.failedUnparseable = metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "failed", "unparseable"));
+        this.failedInvalidUuid = metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "failed", "invalid-uuid"));
+        this.skippedUnsupported = metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "skipped", "unsupported"));
+        this.failedTransformation = metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "failed", "transformation"));
+        this.failedSerialization = metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "failed", "serialization"));
+        this.failedOther = metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "failed", "other"));
+        this.asyncFailures = metrics.meter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "async-failures"));
     }
 
     @Override
     public boolean onMessage(Message message, String transactionId) {
+        return onMessage(message, transactionId, NOTHING);
+    }
+
+    @Override
+    public boolean onMessage(Message message, String transactionId, Runnable onProcessed) {
         if (filter.test(message)) {
             LOG.info("Process message");
-            handleMessage(message, transactionId);
+            handleMessage(message, transactionId, onProcessed);
         } else {
+            skippedOtherSystem.inc();
             LOG.info("Skip message from [{}]", message.getOriginSystemId());
+            onProcessed.run();
         }
         return true;
     }
 
-    private void handleMessage(Message message, String transactionId) {
+    private void handleMessage(Message message, String transactionId, Runnable onProcessed) {
+        EomFile methodeContent = deserialize(message);
         try {
-            EomFile methodeContent = objectMapper.reader(EomFile.class).readValue(message.getMessageBody());
             UUIDValidation.of(methodeContent.getUuid());
-            if (publishingValidator.isValidForPublishing(methodeContent)) {
-                LOG.info("Importing content [{}] of type [{}] .", methodeContent.getUuid(), methodeContent.getType());
-                mapper.mapImageModel(methodeContent, transactionId, message.getMessageTimestamp());
+        } catch (RuntimeException e) {
+            failedInvalidUuid.inc();
+            throw e;
+        }
+        if (isValidForPublishing(methodeContent)) {
+            LOG.info("Importing content [{}] of type [{}] .", methodeContent.getUuid(), methodeContent.getType());
+            if (pipeline != null) {
+                pipeline.submit(methodeContent, transactionId, message.getMessageTimestamp(), onProcessed, this::countAsyncFailure);
+            } else if (workers == null) {
+                try {
+                    mapper.mapImageModel(methodeContent, transactionId, message.getMessageTimestamp(), onProcessed);
+                } catch (RuntimeException e) {
+                    countFailure(e);
+                    throw e;
+                }
             } else {
-                LOG.info("Skip message [{}] of type [{}]", methodeContent.getUuid(), methodeContent.getType());
+                workers.execute(methodeContent.getUuid(),
+                        () -> mapInWorker(methodeContent, transactionId, message.getMessageTimestamp(), onProcessed));
             }
+        } else {
+            skippedNotPublishable.inc();
+            LOG.info("Skip message [{}] of type [{}]", methodeContent.getUuid(), methodeContent.getType());
+            onProcessed.run();
+        }
+    }
+
+    private EomFile deserialize(Message message) {
+        try (Timer.Context ignored = deserializeTimer.time()) {
+            return eomFileReader.readValue(message.getMessageBody());
         } catch (IOException e) {
+            failedUnparseable.inc();
             throw new IngesterException("Unable to parse Methode content message", e);
         }
     }
 
+    private boolean isValidForPublishing(EomFile methodeContent) {
+        try (Timer.Context ignored = validateTimer.time()) {
+            return publishingValidator.isValidForPublishing(methodeContent);
+        }
+    }
+
+    private void mapInWorker(EomFile methodeContent, String transactionId, Date lastModified, Runnable onProcessed) {
+        try {
+            mapper.mapImageModel(methodeContent, transactionId, lastModified, onProcessed);
+        } catch (RuntimeException e) {
+            failedAfterAcknowledgement(methodeContent.getUuid(), transactionId, e);
+        }
+    }
+
+    /**
+     * Failures of messages that have already been acknowledged, which the consumer will not redeliver.
+     */
+    public Meter getAsyncFailures() {
+        return asyncFailures;
+    }
+
+    private void failedAfterAcknowledgement(String uuid, String transactionId, RuntimeException e) {
+        if (e instanceof MethodeContentNotSupportedException) {
+            LOG.info("Skip unsupported content [{}] transactionId={}: {}", uuid, transactionId, e.getMessage());
+        } else {
+            LOG.error("Failed to import content [{}] transactionId={}, it will not be redelivered", uuid, transactionId, e);
+        }
+        countAsyncFailure(e);
+    }
+
+    private void countAsyncFailure(RuntimeException e) {
+        countFailure(e);
+        if (!(e instanceof MethodeContentNotSupportedException)) {
+            asyncFailures.mark();
+        }
+    }
+
+    private void countFailure(RuntimeException e) {
+        if (e instanceof MethodeContentNotSupportedException) {
+            skippedUnsupported.inc();
+        } else if (e instanceof TransformationException) {
+            failedTransformation.inc();
+        } else if (e instanceof ContentMapperException) {
+            failedSerialization.inc();
+        } else {
+            failedOther.inc();
+        }
+    }
+
 }
@@ -0,0 +1,54 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.ft.content.model.Content;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long content took from its native publication event to the delivery of the message that emitted it:
+ * the return of the producer call, or with batching the successful send of the batch holding the message. The lag is
+ * measured from the content's <code>lastModified</code>, which the listener sets to the native message timestamp. Lag
+ * is kept per content type and media type, and the largest lag seen in the last minute is exposed as the
+ * <code>max-lag</code> gauge.
+ */
+public class PublishLagRecorder {
+
+    private static final long MAX_LAG_WINDOW_SECONDS = 60;
+    private static final String UNKNOWN = "unknown";
+
+    private final MetricRegistry metrics;
+    private final Clock clock;
+    private final Histogram recentLag;
+
+    public PublishLagRecorder(final MetricRegistry metrics) {
+        this(metrics, Clock.defaultClock());
+    }
+
+    PublishLagRecorder(final MetricRegistry metrics, final Clock clock) {
+        this.metrics = metrics;
+        this.clock = clock;
+        this.recentLag = new Histogram(new SlidingTimeWindowReservoir(MAX_LAG_WINDOW_SECONDS, TimeUnit.SECONDS, clock));
+        metrics.register(MetricRegistry.name(PublishLagRecorder.class, "max-lag"),
+                (Gauge<Long>) () -> recentLag.getSnapshot().getMax());
+    }
+
+    public void record(final Content content) {
+        if (content.getLastModified() == null) {
+            return;
+        }
+        final long lag = clock.getTime() - content.getLastModified().getTime();
+        metrics.histogram(MetricRegistry.name(PublishLagRecorder.class, "lag",
+                orUnknown(content.getType()), orUnknown(content.getMediaType()).replace('/', '-')))
+                .update(lag);
+        recentLag.update(lag);
+    }
+
+    private static String orUnknown(final String value) {
+        return value == null ? UNKNOWN : value;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.ft.content.model.Content;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.service.MethodeImageModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Publishes Methode content through separate map, serialize and send stages, each running on its own
+ * {@link KeyOrderedExecutor}. Every stage routes by content uuid, so versions of the same item keep their order
+ * end to end, and mapping of one item overlaps with the publishing of others. Stage queues are bounded: when the send
+ * stage falls behind, the stages in front of it fill up and eventually block the consumer thread.
+ * Deserialization stays on the consumer thread, which is the only place the order of events is known. Unchanged content
+ * is dropped in the serialize stage, before its message is built, so the send stage only does I/O.
+ * A failure in any stage ends the item: it is logged, counted per stage and handed to the submitter's failure handler.
+ */
+public class PublishingPipeline {
+
+    public enum Stage {
+        MAP, SERIALIZE, SEND;
+
+        String metricName() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(PublishingPipeline.class);
+
+    private final MethodeImageModelMapper imageModelMapper;
+    private final MessageProducingContentMapper messageProducingContentMapper;
+    private final KeyOrderedExecutor mapStage;
+    private final KeyOrderedExecutor serializeStage;
+    private final KeyOrderedExecutor sendStage;
+    private final Map<Stage, Timer> serviceTimes = new EnumMap<>(Stage.class);
+    private final Map<Stage, Meter> failures = new EnumMap<>(Stage.class);
+
+    public PublishingPipeline(final MethodeImageModelMapper imageModelMapper,
+                              final MessageProducingContentMapper messageProducingContentMapper,
+                              final KeyOrderedExecutor mapStage,
+                              final KeyOrderedExecutor serializeStage,
+                              final KeyOrderedExecutor sendStage,
+                              final MetricRegistry metrics) {
+        this.imageModelMapper = imageModelMapper;
+        this.messageProducingContentMapper = messageProducingContentMapper;
+        this.mapStage = mapStage;
+        this.serializeStage = serializeStage;
+        this.sendStage = sendStage;
+        for (Stage stage : Stage.values()) {
+            serviceTimes.put(stage, metrics.timer(MetricRegistry.name(PublishingPipeline.class, stage.metricName(), "service-time")));
+            failures.put(stage, metrics.meter(MetricRegistry.name(PublishingPipeline.class, stage.metricName(), "failures")));
+        }
+    }
+
+    public void submit(final EomFile eomFile, final String transactionId, final Date lastModified) {
+        submit(eomFile, transactionId, lastModified, () -> {
+        }, e -> {
+        });
+    }
+
+    /**
+     * @param onPublished runs once the message has been delivered, or the content skipped as unchanged
+     * @param onFailure   is given the exception of the stage that failed, on that stage's thread
+     */
+    public void submit(final EomFile eomFile, final String transactionId, final Date lastModified,
+                       final Runnable onPublished, final Consumer<RuntimeException> onFailure) {
+        final String uuid = eomFile.getUuid();
+        mapStage.execute(uuid, () -> {
+            final Content content = run(Stage.MAP, uuid, transactionId, onFailure,
+                    () -> imageModelMapper.mapImageModel(eomFile, transactionId, lastModified));
+            if (content != null) {
+                serializeStage.execute(uuid, () -> serialize(uuid, transactionId, content, onPublished, onFailure));
+            }
+        });
+    }
+
+    private void serialize(final String uuid, final String transactionId, final Content content,
+                           final Runnable onPublished, final Consumer<RuntimeException> onFailure) {
+        final Runnable send = run(Stage.SERIALIZE, uuid, transactionId, onFailure,
+                () -> messageProducingContentMapper.prepareSend(content, onPublished));
+        if (send != null) {
+            sendStage.execute(uuid, () -> run(Stage.SEND, uuid, transactionId, onFailure, () -> {
+                send.run();
+                return send;
+            }));
+        }
+    }
+
+    private <T> T run(final Stage stage, final String uuid, final String transactionId,
+                      final Consumer<RuntimeException> onFailure, final Supplier<T> work) {
+        try (Timer.Context ignored = serviceTimes.get(stage).time()) {
+            return work.get();
+        } catch (RuntimeException e) {
+            failures.get(stage).mark();
+            LOG.error("Failed to {} content [{}] transactionId={}", stage.metricName(), uuid, transactionId, e);
+            onFailure.accept(e);
+            return null;
+        }
+    }
+}
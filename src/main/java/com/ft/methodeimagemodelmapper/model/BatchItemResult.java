@@ -0,0 +1,61 @@
+package com.ft.methodeimagemodelmapper.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ft.content.model.Content;
+
+/**
+ * Outcome of one item of a batch request, written as one line of the NDJSON response.
+ * Successful items carry the mapped content, failed ones the status and message the single-item endpoint would have returned.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private static final int OK = 200;
+
+    private final int index;
+    private final String uuid;
+    private final int status;
+    private final Content content;
+    private final String message;
+
+    public BatchItemResult(@JsonProperty("index") int index,
+                           @JsonProperty("uuid") String uuid,
+                           @JsonProperty("status") int status,
+                           @JsonProperty("content") Content content,
+                           @JsonProperty("message") String message) {
+        this.index = index;
+        this.uuid = uuid;
+        this.status = status;
+        this.content = content;
+        this.message = message;
+    }
+
+    public static BatchItemResult success(int index, String uuid, Content content) {
+        return new BatchItemResult(index, uuid, OK, content, null);
+    }
+
+    public static BatchItemResult failure(int index, String uuid, int status, String message) {
+        return new BatchItemResult(index, uuid, status, null, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Content getContent() {
+        return content;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,149 @@
+package com.ft.methodeimagemodelmapper.model;
+
+/**
+ * Raw values read from the <code>/meta/picture</code> section of the Methode attributes XML.
+ * Missing elements are represented by empty strings, as an XPath string evaluation would return them.
+ */
+public class ImageAttributes {
+
+    private final String caption;
+    private final String altTag;
+    private final String onlineSource;
+    private final String manualSource;
+    private final String ftAggregation;
+    private final String ftSyndication;
+    private final String ftSource;
+    private final String ftFotowareId;
+    private final String externalUrl;
+    private final String ftImageType;
+
+    public ImageAttributes(String caption,
+                           String altTag,
+                           String onlineSource,
+                           String manualSource,
+                           String ftAggregation,
+                           String ftSyndication,
+                           String ftSource,
+                           String ftFotowareId,
+                           String externalUrl,
+                           String ftImageType) {
+        this.caption = caption;
+        this.altTag = altTag;
+        this.onlineSource = onlineSource;
+        this.manualSource = manualSource;
+        this.ftAggregation = ftAggregation;
+        this.ftSyndication = ftSyndication;
+        this.ftSource = ftSource;
+        this.ftFotowareId = ftFotowareId;
+        this.externalUrl = externalUrl;
+        this.ftImageType = ftImageType;
+    }
+
+    public String getCaption() {
+        return caption;
+    }
+
+    public String getAltTag() {
+        return altTag;
+    }
+
+    public String getOnlineSource() {
+        return onlineSource;
+    }
+
+    public String getManualSource() {
+        return manualSource;
+    }
+
+    public String getFtAggregation() {
+        return ftAggregation;
+    }
+
+    public String getFtSyndication() {
+        return ftSyndication;
+    }
+
+    public String getFtSource() {
+        return ftSource;
+    }
+
+    public String getFtFotowareId() {
+        return ftFotowareId;
+    }
+
+    public String getExternalUrl() {
+        return externalUrl;
+    }
+
+    public String getFtImageType() {
+        return ftImageType;
+    }
+
+    public static class Builder {
+        private String caption = "";
+        private String altTag = "";
+        private String onlineSource = "";
+        private String manualSource = "";
+        private String ftAggregation = "";
+        private String ftSyndication = "";
+        private String ftSource = "";
+        private String ftFotowareId = "";
+        private String externalUrl = "";
+        private String ftImageType = "";
+
+        public Builder withCaption(String caption) {
+            this.caption = caption;
+            return this;
+        }
+
+        public Builder withAltTag(String altTag) {
+            this.altTag = altTag;
+            return this;
+        }
+
+        public Builder withOnlineSource(String onlineSource) {
+            this.onlineSource = onlineSource;
+            return this;
+        }
+
+        public Builder withManualSource(String manualSource) {
+            this.manualSource = manualSource;
+            return this;
+        }
+
+        public Builder withFtAggregation(String ftAggregation) {
+            this.ftAggregation = ftAggregation;
+            return this;
+        }
+
+        public Builder withFtSyndication(String ftSyndication) {
+            this.ftSyndication = ftSyndication;
+            return this;
+        }
+
+        public Builder withFtSource(String ftSource) {
+            this.ftSource = ftSource;
+            return this;
+        }
+
+        public Builder withFtFotowareId(String ftFotowareId) {
+            this.ftFotowareId = ftFotowareId;
+            return this;
+        }
+
+        public Builder withExternalUrl(String externalUrl) {
+            this.externalUrl = externalUrl;
+            return this;
+        }
+
+        public Builder withFtImageType(String ftImageType) {
+            this.ftImageType = ftImageType;
+            return this;
+        }
+
+        public ImageAttributes build() {
+            return new ImageAttributes(caption, altTag, onlineSource, manualSource, ftAggregation, ftSyndication,
+                    ftSource, ftFotowareId, externalUrl, ftImageType);
+        }
+    }
+}
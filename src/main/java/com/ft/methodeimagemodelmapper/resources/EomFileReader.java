@@ -0,0 +1,63 @@
+package com.ft.methodeimagemodelmapper.resources;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads EomFiles one at a time from either a JSON array or newline-delimited JSON.
+ * Malformed input ends the iteration instead of failing it, so that the items read so far can still be answered;
+ * the cause is then available from {@link #getFailure()}.
+ */
+class EomFileReader implements Iterator<EomFile> {
+
+    private final MappingIterator<EomFile> values;
+    private EomFile next;
+    private Exception failure;
+    private int count;
+
+    EomFileReader(final ObjectReader eomFileReader, final InputStream input) throws IOException {
+        this.values = eomFileReader.readValues(input);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && failure == null) {
+            try {
+                if (values.hasNextValue()) {
+                    next = values.nextValue();
+                    if (next == null) {
+                        failure = new IllegalArgumentException("Batch item " + count + " is null");
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                failure = ex;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public EomFile next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final EomFile result = next;
+        next = null;
+        count++;
+        return result;
+    }
+
+    Exception getFailure() {
+        return failure;
+    }
+
+    int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ft.methodeimagemodelmapper.resources;
+
+import com.ft.messaging.standards.message.v1.Message;
+import com.ft.methodeimagemodelmapper.messaging.MessageProducingContentMapper;
+import com.ft.methodeimagemodelmapper.model.BatchItemResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects prepared batch items in input order and publishes their messages in groups of up to
+ * <code>maxMessagesPerSend</code>, one producer call per group. Results are released only once the group holding
+ * them has been sent, so every reported outcome is final.
+ */
+class IngestBatch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestBatch.class);
+    private static final int SEND_FAILED_STATUS = 500;
+    private static final String SEND_FAILED = "Unable to publish message.";
+
+    private final MessageProducingContentMapper messageProducingContentMapper;
+    private final int maxMessagesPerSend;
+    private final OrderedBatchExecutor.ResultSink<BatchItemResult> sink;
+    private final List<Item> pending = new ArrayList<>();
+    private final List<Message> pendingMessages = new ArrayList<>();
+
+    IngestBatch(final MessageProducingContentMapper messageProducingContentMapper, final int maxMessagesPerSend,
+                final OrderedBatchExecutor.ResultSink<BatchItemResult> sink) {
+        this.messageProducingContentMapper = messageProducingContentMapper;
+        this.maxMessagesPerSend = maxMessagesPerSend;
+        this.sink = sink;
+    }
+
+    void add(final Item item) throws IOException {
+        pending.add(item);
+        if (item.message != null) {
+            pendingMessages.add(item.message);
+            if (pendingMessages.size() >= maxMessagesPerSend) {
+                flush();
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        boolean sent = true;
+        if (!pendingMessages.isEmpty()) {
+            try {
+                messageProducingContentMapper.send(new ArrayList<>(pendingMessages));
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to publish {} messages", pendingMessages.size(), e);
+                sent = false;
+            }
+        }
+        for (Item item : pending) {
+            if (item.failure != null) {
+                sink.accept(item.failure);
+            } else if (sent) {
+                sink.accept(BatchItemResult.success(item.index, item.uuid, null));
+            } else {
+                sink.accept(BatchItemResult.failure(item.index, item.uuid, SEND_FAILED_STATUS, SEND_FAILED));
+            }
+        }
+        pending.clear();
+        pendingMessages.clear();
+    }
+
+    static class Item {
+
+        private final int index;
+        private final String uuid;
+        private final Message message;
+        private final BatchItemResult failure;
+
+        private Item(final int index, final String uuid, final Message message, final BatchItemResult failure) {
+            this.index = index;
+            this.uuid = uuid;
+            this.message = message;
+            this.failure = failure;
+        }
+
+        static Item ready(final int index, final String uuid, final Message message) {
+            return new Item(index, uuid, message, null);
+        }
+
+        static Item failed(final BatchItemResult failure) {
+            return new Item(failure.getIndex(), failure.getUuid(), null, failure);
+        }
+    }
+}
@@ -1,28 +1,43 @@
 package com.ft.methodeimagemodelmapper.resources;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.ft.api.jaxrs.errors.ClientError;
+import com.ft.api.jaxrs.errors.ErrorEntity;
 import com.ft.api.jaxrs.errors.ServerError;
 import com.ft.api.util.transactionid.TransactionIdUtils;
 import com.ft.content.model.Content;
+import com.ft.methodeimagemodelmapper.configuration.BatchConfiguration;
 import com.ft.methodeimagemodelmapper.exception.ContentMapperException;
 import com.ft.methodeimagemodelmapper.exception.MethodeContentNotSupportedException;
 import com.ft.methodeimagemodelmapper.exception.TransformationException;
 import com.ft.methodeimagemodelmapper.exception.ValidationException;
 import com.ft.methodeimagemodelmapper.messaging.MessageProducingContentMapper;
+import com.ft.methodeimagemodelmapper.model.BatchItemResult;
 import com.ft.methodeimagemodelmapper.model.EomFile;
 import com.ft.methodeimagemodelmapper.service.MethodeImageModelMapper;
 import com.ft.methodeimagemodelmapper.validation.PublishingValidator;
 import com.ft.uuidutils.UUIDValidation;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
 
 @Path("/")
 public class MethodeImageModelResource {
@@ -30,23 +45,45 @@ public class MethodeImageModelResource {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodeImageModelResource.class);
 
     private static final String CHARSET_UTF_8 = ";charset=utf-8";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final int IN_FLIGHT_PER_THREAD = 2;
 
     private static final String CONTENT_TYPE_NOT_SUPPORTED = "Unsupported type - not an image.";
     private static final String CONTENT_CANNOT_BE_MAPPED = "Content cannot be mapped.";
     private static final String INVALID_UUID = "Invalid uuid";
     private static final String UNABLE_TO_WRITE_JSON_MESSAGE = "Unable to write JSON for message";
+    private static final String MALFORMED_BATCH = "Malformed batch input.";
 
     private final MethodeImageModelMapper methodeImageModelMapper;
     private final MessageProducingContentMapper messageProducingContentMapper;
     private final PublishingValidator publishingValidator;
-
+    private final ObjectMapper objectMapper;
+    private final ObjectReader eomFileReader;
+    private final ObjectWriter resultWriter;
+    private final OrderedBatchExecutor batchExecutor;
+    private final BatchConfiguration batchConfiguration;
 
     public MethodeImageModelResource(MethodeImageModelMapper methodeImageModelMapper,
                                      MessageProducingContentMapper messageProducingContentMapper,
                                      PublishingValidator publishingValidator) {
+        this(methodeImageModelMapper, messageProducingContentMapper, publishingValidator,
+                new ObjectMapper(), MoreExecutors.sameThreadExecutor(), new BatchConfiguration(1, null));
+    }
+
+    public MethodeImageModelResource(MethodeImageModelMapper methodeImageModelMapper,
+                                     MessageProducingContentMapper messageProducingContentMapper,
+                                     PublishingValidator publishingValidator,
+                                     ObjectMapper objectMapper,
+                                     ExecutorService batchExecutorService,
+                                     BatchConfiguration batchConfiguration) {
         this.methodeImageModelMapper = methodeImageModelMapper;
         this.messageProducingContentMapper = messageProducingContentMapper;
         this.publishingValidator = publishingValidator;
+        this.objectMapper = objectMapper;
+        this.eomFileReader = objectMapper.reader(EomFile.class);
+        this.resultWriter = objectMapper.writerWithType(BatchItemResult.class);
+        this.batchExecutor = new OrderedBatchExecutor(batchExecutorService, batchConfiguration.getParallelism() * IN_FLIGHT_PER_THREAD);
+        this.batchConfiguration = batchConfiguration;
     }
 
     @POST
@@ -58,16 +95,54 @@ public class MethodeImageModelResource {
                 methodeImageModelMapper.mapImageModel(methodeContent, transactionId, new Date()));
     }
 
+    @POST
+    @Path("/map/batch")
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    @Produces(APPLICATION_NDJSON + CHARSET_UTF_8)
+    public final StreamingOutput mapImageModels(InputStream methodeContents, @Context HttpHeaders httpHeaders) {
+        final String transactionId = TransactionIdUtils.getTransactionIdOrDie(httpHeaders);
+        return output -> {
+            final JsonGenerator generator = createLineGenerator(output);
+            final EomFileReader items = new EomFileReader(eomFileReader, methodeContents);
+            batchExecutor.execute(items,
+                    (index, methodeContent) -> mapBatchItem(index, methodeContent, transactionId),
+                    result -> writeLine(generator, result));
+            finishBatch(generator, items, transactionId);
+        };
+    }
+
     @POST
     @Path("/ingest")
     public final void ingestImageModel(EomFile methodeContent, @Context HttpHeaders httpHeaders) {
         LOGGER.info("Ingesting content with uuid [{}]", methodeContent.getUuid());
         getModelAndHandleExceptions(methodeContent, httpHeaders, (transactionId) ->
-                messageProducingContentMapper.mapImageModel(methodeContent, transactionId, new Date()));
+                messageProducingContentMapper.republishImageModel(methodeContent, transactionId, new Date()));
+    }
+
+    @POST
+    @Path("/ingest/batch")
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    @Produces(APPLICATION_NDJSON + CHARSET_UTF_8)
+    public final StreamingOutput ingestImageModels(InputStream methodeContents, @Context HttpHeaders httpHeaders) {
+        final String transactionId = TransactionIdUtils.getTransactionIdOrDie(httpHeaders);
+        return output -> {
+            final JsonGenerator generator = createLineGenerator(output);
+            final EomFileReader items = new EomFileReader(eomFileReader, methodeContents);
+            final IngestBatch batch = new IngestBatch(messageProducingContentMapper, batchConfiguration.getMaxMessagesPerSend(),
+                    result -> writeLine(generator, result));
+            batchExecutor.execute(items,
+                    (index, methodeContent) -> prepareIngestItem(index, methodeContent, transactionId),
+                    batch::add);
+            batch.flush();
+            finishBatch(generator, items, transactionId);
+        };
     }
 
     private Content getModelAndHandleExceptions(EomFile methodeContent, HttpHeaders headers, Action<Content> getContentModel) {
-        final String transactionId = TransactionIdUtils.getTransactionIdOrDie(headers);
+        return getModelAndHandleExceptions(methodeContent, TransactionIdUtils.getTransactionIdOrDie(headers), getContentModel);
+    }
+
+    private Content getModelAndHandleExceptions(EomFile methodeContent, String transactionId, Action<Content> getContentModel) {
         try {
             UUIDValidation.of(methodeContent.getUuid());
             if (publishingValidator.isValidForPublishing(methodeContent)) {
@@ -85,6 +160,58 @@ public class MethodeImageModelResource {
         }
     }
 
+    private BatchItemResult mapBatchItem(int index, EomFile methodeContent, String transactionId) {
+        try {
+            final Content content = getModelAndHandleExceptions(methodeContent, transactionId, (tid) ->
+                    methodeImageModelMapper.mapImageModel(methodeContent, tid, new Date()));
+            return BatchItemResult.success(index, methodeContent.getUuid(), content);
+        } catch (WebApplicationException e) {
+            return BatchItemResult.failure(index, methodeContent.getUuid(), e.getResponse().getStatus(), messageOf(e));
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected failure mapping batch item uuid={} transactionId={}", methodeContent.getUuid(), transactionId, e);
+            return BatchItemResult.failure(index, methodeContent.getUuid(), 500, CONTENT_CANNOT_BE_MAPPED);
+        }
+    }
+
+    private IngestBatch.Item prepareIngestItem(int index, EomFile methodeContent, String transactionId) {
+        final BatchItemResult mapped = mapBatchItem(index, methodeContent, transactionId);
+        if (mapped.getContent() == null) {
+            return IngestBatch.Item.failed(mapped);
+        }
+        try {
+            return IngestBatch.Item.ready(index, methodeContent.getUuid(), messageProducingContentMapper.createMessage(mapped.getContent()));
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to create message for batch item uuid={} transactionId={}", methodeContent.getUuid(), transactionId, e);
+            return IngestBatch.Item.failed(BatchItemResult.failure(index, methodeContent.getUuid(), 500, UNABLE_TO_WRITE_JSON_MESSAGE));
+        }
+    }
+
+    private String messageOf(WebApplicationException e) {
+        final Object entity = e.getResponse().getEntity();
+        return entity instanceof ErrorEntity ? ((ErrorEntity) entity).getMessage() : e.getMessage();
+    }
+
+    private JsonGenerator createLineGenerator(OutputStream output) throws IOException {
+        final JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private void finishBatch(JsonGenerator generator, EomFileReader items, String transactionId) throws IOException {
+        if (items.getFailure() != null) {
+            LOGGER.warn("Stopped reading batch after {} items transactionId={}", items.getCount(), transactionId, items.getFailure());
+            writeLine(generator, BatchItemResult.failure(items.getCount(), null, 400, MALFORMED_BATCH));
+        }
+        generator.close();
+    }
+
+    private void writeLine(JsonGenerator generator, BatchItemResult result) throws IOException {
+        resultWriter.writeValue(generator, result);
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
     private interface Action<T> {
         T perform(String transactionId);
     }
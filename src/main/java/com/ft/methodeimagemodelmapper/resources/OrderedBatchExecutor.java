@@ -0,0 +1,66 @@
+package com.ft.methodeimagemodelmapper.resources;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs one task per item on a shared pool and hands the results over in input order.
+ * At most <code>maxInFlight</code> items are pending at any time, so neither the input nor the results are buffered in full.
+ */
+class OrderedBatchExecutor {
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    OrderedBatchExecutor(final ExecutorService executor, final int maxInFlight) {
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    <I, O> void execute(final Iterator<I> items, final ItemTask<I, O> task, final ResultSink<O> sink) throws IOException {
+        final Deque<Future<O>> inFlight = new ArrayDeque<>(maxInFlight);
+        try {
+            int index = 0;
+            while (items.hasNext()) {
+                final I item = items.next();
+                final int itemIndex = index++;
+                inFlight.addLast(executor.submit(() -> task.apply(itemIndex, item)));
+                if (inFlight.size() >= maxInFlight) {
+                    sink.accept(await(inFlight.removeFirst()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                sink.accept(await(inFlight.removeFirst()));
+            }
+        } finally {
+            for (Future<O> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+    }
+
+    private <O> O await(final Future<O> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for batch item");
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    interface ItemTask<I, O> {
+        O apply(int index, I item);
+    }
+
+    interface ResultSink<O> {
+        void accept(O result) throws IOException;
+    }
+}
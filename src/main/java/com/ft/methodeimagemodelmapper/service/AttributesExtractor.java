@@ -0,0 +1,16 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathExpressionException;
+import java.io.IOException;
+
+public interface AttributesExtractor {
+
+    /**
+     * @throws SAXException if the attributes are not well-formed XML
+     */
+    ImageAttributes extract(String attributes) throws SAXException, IOException, XPathExpressionException, ParserConfigurationException;
+}
@@ -0,0 +1,117 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the answer of a resolver per version of a Methode file, keyed by its uuid, last modified date, binary
+ * length and media type, so that republishing or redelivering the same version does not repeat the work. Building the
+ * key reads nothing but those fields. Files without a uuid or last modified date are always resolved.
+ */
+public class CachingTypeResolver implements TypeResolver {
+
+    private final TypeResolver delegate;
+    private final Cache<Key, Optional<String>> cache;
+    private final Meter hits;
+    private final Meter misses;
+    private final Meter evictions;
+
+    public CachingTypeResolver(final TypeResolver delegate, final long maximumSize, final long timeToLive, final TimeUnit timeToLiveUnit,
+                               final MetricRegistry metrics) {
+        this(delegate, maximumSize, timeToLive, timeToLiveUnit, metrics, Ticker.systemTicker());
+    }
+
+    CachingTypeResolver(final TypeResolver delegate, final long maximumSize, final long timeToLive, final TimeUnit timeToLiveUnit,
+                        final MetricRegistry metrics, final Ticker ticker) {
+        this.delegate = delegate;
+        this.hits = metrics.meter(MetricRegistry.name(CachingTypeResolver.class, delegate.getName(), "hits"));
+        this.misses = metrics.meter(MetricRegistry.name(CachingTypeResolver.class, delegate.getName(), "misses"));
+        this.evictions = metrics.meter(MetricRegistry.name(CachingTypeResolver.class, delegate.getName(), "evictions"));
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive, timeToLiveUnit)
+                .ticker(ticker)
+                .<Key, Optional<String>>removalListener(notification -> {
+                    if (notification.wasEvicted()) {
+                        evictions.mark();
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public int getCost() {
+        return delegate.getCost();
+    }
+
+    @Override
+    public String resolve(final EomFile eomFile, final ImageAttributes attributes, final String mediaType, final String transactionId) {
+        if (eomFile.getUuid() == null || eomFile.getLastModified() == null) {
+            return delegate.resolve(eomFile, attributes, mediaType, transactionId);
+        }
+        final Key key = new Key(eomFile.getUuid(), eomFile.getLastModified(),
+                eomFile.getValue() == null ? -1 : eomFile.getValue().length, mediaType);
+        final Optional<String> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.mark();
+            return cached.orElse(null);
+        }
+        misses.mark();
+        final String type = delegate.resolve(eomFile, attributes, mediaType, transactionId);
+        cache.put(key, Optional.ofNullable(type));
+        return type;
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.size();
+    }
+
+    private static class Key {
+
+        private final String uuid;
+        private final long lastModified;
+        private final int length;
+        private final String mediaType;
+
+        Key(final String uuid, final Date lastModified, final int length, final String mediaType) {
+            this.uuid = uuid;
+            this.lastModified = lastModified.getTime();
+            this.length = length;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return lastModified == other.lastModified && length == other.length && uuid.equals(other.uuid)
+                    && Objects.equals(mediaType, other.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(uuid, lastModified, length, mediaType);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Hands each thread its own {@link DocumentBuilder}, created once from a single factory and reset between documents.
+ * Neither builders nor factories are thread-safe, so request and listener threads never share an instance.
+ */
+public class DocumentBuilderPool {
+
+    private static final String LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+
+    private final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    private final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<>();
+
+    public Document parse(final String xml) throws ParserConfigurationException, SAXException, IOException {
+        return getDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    private DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder documentBuilder = documentBuilders.get();
+        if (documentBuilder == null) {
+            documentBuilder = newDocumentBuilder();
+            documentBuilders.set(documentBuilder);
+        } else {
+            documentBuilder.reset();
+        }
+        return documentBuilder;
+    }
+
+    private DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        synchronized (documentBuilderFactory) {
+            documentBuilderFactory.setFeature(LOAD_EXTERNAL_DTD, false);
+            return documentBuilderFactory.newDocumentBuilder();
+        }
+    }
+}
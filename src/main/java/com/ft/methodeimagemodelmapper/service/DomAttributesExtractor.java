@@ -0,0 +1,44 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPathExpressionException;
+import java.io.IOException;
+
+public class DomAttributesExtractor implements AttributesExtractor {
+
+    private static final String CAPTION = "/meta/picture/web_information/caption";
+    private static final String ALT_TAG = "/meta/picture/web_information/alt_tag";
+    private static final String ONLINE_SOURCE = "/meta/picture/web_information/online-source";
+    private static final String MANUAL_SOURCE = "/meta/picture/web_information/manual-source";
+    private static final String FT_AGGREGATION = "/meta/picture/FTRights/FTAggregation";
+    private static final String FT_SYNDICATION = "/meta/picture/FTRights/FTSyndication";
+    private static final String FT_SOURCE = "/meta/picture/FTRights/FTSource";
+    private static final String FT_FOTOWARE_ID = "/meta/picture/FTUsage/FTFotowareID";
+    private static final String EXTERNAL_URL = "/meta/picture/ExternalUrl";
+    private static final String FT_IMAGE_TYPE = "/meta/picture/FTImageType";
+
+    private final DocumentBuilderPool documentBuilderPool = new DocumentBuilderPool();
+    private final XPathRegistry xpaths = new XPathRegistry(CAPTION, ALT_TAG, ONLINE_SOURCE, MANUAL_SOURCE,
+            FT_AGGREGATION, FT_SYNDICATION, FT_SOURCE, FT_FOTOWARE_ID, EXTERNAL_URL, FT_IMAGE_TYPE);
+
+    @Override
+    public ImageAttributes extract(final String attributes) throws SAXException, IOException, XPathExpressionException, ParserConfigurationException {
+        final Document attributesDocument = documentBuilderPool.parse(attributes);
+        return new ImageAttributes.Builder()
+                .withCaption(xpaths.evaluate(CAPTION, attributesDocument))
+                .withAltTag(xpaths.evaluate(ALT_TAG, attributesDocument))
+                .withOnlineSource(xpaths.evaluate(ONLINE_SOURCE, attributesDocument))
+                .withManualSource(xpaths.evaluate(MANUAL_SOURCE, attributesDocument))
+                .withFtAggregation(xpaths.evaluate(FT_AGGREGATION, attributesDocument))
+                .withFtSyndication(xpaths.evaluate(FT_SYNDICATION, attributesDocument))
+                .withFtSource(xpaths.evaluate(FT_SOURCE, attributesDocument))
+                .withFtFotowareId(xpaths.evaluate(FT_FOTOWARE_ID, attributesDocument))
+                .withExternalUrl(xpaths.evaluate(EXTERNAL_URL, attributesDocument))
+                .withFtImageType(xpaths.evaluate(FT_IMAGE_TYPE, attributesDocument))
+                .build();
+    }
+}
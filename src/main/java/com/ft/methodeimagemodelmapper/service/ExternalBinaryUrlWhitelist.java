@@ -0,0 +1,172 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides whether an external binary URL is whitelisted, that is whether it matches any of a list of regular
+ * expressions in full. The expressions are compiled once into a single alternation. Each expression's literal prefix
+ * is extracted, so URLs that start with none of the prefixes are rejected without running the regex. The whitelist can
+ * be replaced at runtime; an update is compiled completely before it is swapped in, so lookups never see a partial one.
+ */
+public class ExternalBinaryUrlWhitelist {
+
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
+    private final Counter matches;
+    private final Counter misses;
+    private volatile Compiled compiled;
+
+    public ExternalBinaryUrlWhitelist(final List<String> patterns, final MetricRegistry metrics) {
+        this.compiled = new Compiled(patterns == null ? ImmutableList.of() : patterns);
+        this.matches = metrics.counter(MetricRegistry.name(ExternalBinaryUrlWhitelist.class, "match"));
+        this.misses = metrics.counter(MetricRegistry.name(ExternalBinaryUrlWhitelist.class, "miss"));
+    }
+
+    public boolean matches(final String url) {
+        final boolean matched = compiled.matches(url);
+        (matched ? matches : misses).inc();
+        return matched;
+    }
+
+    /**
+     * Replaces the whitelist.
+     *
+     * @throws java.util.regex.PatternSyntaxException if any of the patterns is invalid, in which case the whitelist is
+     *                                                left unchanged
+     */
+    public void update(final List<String> patterns) {
+        compiled = new Compiled(patterns);
+    }
+
+    public List<String> getPatterns() {
+        return compiled.patterns;
+    }
+
+    /**
+     * The longest string every match of the regex must start with, or an empty string if there is none.
+     */
+    static String literalPrefix(final String regex) {
+        if (hasTopLevelAlternation(regex) || regex.contains("\\Q")) {
+            return "";
+        }
+        final StringBuilder prefix = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            char literal;
+            int next;
+            if (c == '\\') {
+                if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    break;
+                }
+                literal = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (".[](){}*+?|^$".indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            if (next < regex.length() && "?*{".indexOf(regex.charAt(next)) >= 0) {
+                break;
+            }
+            prefix.append(literal);
+            if (next < regex.length() && regex.charAt(next) == '+') {
+                break;
+            }
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    private static boolean hasTopLevelAlternation(final String regex) {
+        int groups = 0;
+        boolean inClass = false;
+        for (int i = 0; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                inClass = c != ']';
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                groups++;
+            } else if (c == ')') {
+                groups--;
+            } else if (c == '|' && groups == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Compiled {
+
+        private final List<String> patterns;
+        private final String[] prefixes;
+        private final List<Pattern> regexes;
+
+        Compiled(final List<String> patterns) {
+            this.patterns = ImmutableList.copyOf(patterns);
+            final List<Pattern> individual = new ArrayList<>(patterns.size());
+            final List<String> prefixes = new ArrayList<>(patterns.size());
+            boolean combinable = true;
+            for (String pattern : patterns) {
+                individual.add(Pattern.compile(pattern));
+                prefixes.add(literalPrefix(pattern));
+                combinable &= !BACK_REFERENCE.matcher(pattern).find();
+            }
+            this.prefixes = prefixes.contains("") ? null : prefixes.toArray(new String[prefixes.size()]);
+            final Pattern combined = combinable && patterns.size() > 1 ? combine(patterns) : null;
+            this.regexes = combined == null ? ImmutableList.copyOf(individual) : ImmutableList.of(combined);
+        }
+
+        /**
+         * Joins the patterns into one alternation, or returns <code>null</code> if they cannot be joined, for instance
+         * because two of them declare a group with the same name.
+         */
+        private static Pattern combine(final List<String> patterns) {
+            final StringBuilder alternation = new StringBuilder();
+            for (String pattern : patterns) {
+                alternation.append(alternation.length() == 0 ? "" : "|").append("(?:").append(pattern).append(')');
+            }
+            try {
+                return Pattern.compile(alternation.toString());
+            } catch (PatternSyntaxException ex) {
+                return null;
+            }
+        }
+
+        boolean matches(final String url) {
+            if (url == null || !hasPrefix(url)) {
+                return false;
+            }
+            for (Pattern regex : regexes) {
+                if (regex.matcher(url).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean hasPrefix(final String url) {
+            if (prefixes == null) {
+                return true;
+            }
+            for (String prefix : prefixes) {
+                if (url.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
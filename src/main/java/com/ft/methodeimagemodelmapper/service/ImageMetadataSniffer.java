@@ -0,0 +1,256 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Looks for a key/value tag in the textual metadata of PNG and JPEG binaries without decoding the image.
+ * Chunk and segment bodies are searched in place and skipped without copying; pixel data is never decompressed.
+ * Compressed PNG text is inflated only when its keyword is the tag key or the XMP keyword, and then only up to
+ * {@link #MAX_INFLATED_TEXT_BYTES}, so the cost stays bounded on multi-megabyte binaries.
+ */
+public class ImageMetadataSniffer {
+
+    static final int MAX_INFLATED_TEXT_BYTES = 64 * 1024;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int LENGTH_SIZE = 4;
+    private static final int TYPE_SIZE = 4;
+    private static final int CRC_SIZE = 4;
+    private static final int MAX_KEYWORD_SIZE = 79;
+    private static final int TEXT_CHUNK = chunkType("tEXt");
+    private static final int COMPRESSED_TEXT_CHUNK = chunkType("zTXt");
+    private static final int INTERNATIONAL_TEXT_CHUNK = chunkType("iTXt");
+    private static final int IEND_CHUNK = chunkType("IEND");
+    private static final byte[] XMP_KEYWORD = "xml:com.adobe.xmp".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int JPEG_MARKER_PREFIX = 0xFF;
+    private static final int JPEG_START_OF_IMAGE = 0xD8;
+    private static final int JPEG_END_OF_IMAGE = 0xD9;
+    private static final int JPEG_START_OF_SCAN = 0xDA;
+    private static final int JPEG_APP1 = 0xE1;
+    private static final int JPEG_SEGMENT_LENGTH_SIZE = 2;
+    private static final byte[] XMP_NAMESPACE_PREFIX = "http://ns.adobe.com/".getBytes(StandardCharsets.ISO_8859_1);
+
+    public boolean isPng(final byte[] data) {
+        if (data == null || data.length < PNG_SIGNATURE.length) {
+            return false;
+        }
+        for (int i = 0; i < PNG_SIGNATURE.length; i++) {
+            if (data[i] != PNG_SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isJpeg(final byte[] data) {
+        return data != null && data.length >= 2
+                && (data[0] & 0xFF) == JPEG_MARKER_PREFIX && (data[1] & 0xFF) == JPEG_START_OF_IMAGE;
+    }
+
+    /**
+     * Searches the <code>tEXt</code>, <code>iTXt</code> and <code>zTXt</code> chunks up to <code>IEND</code>,
+     * including XMP packets stored under the <code>XML:com.adobe.xmp</code> keyword.
+     *
+     * @param lowerCaseKey   ASCII key, in lower case, matched case-insensitively
+     * @param lowerCaseValue ASCII value, in lower case, matched case-insensitively
+     * @return whether any single text entry contains both the key and the value
+     */
+    public boolean pngContainsTag(final byte[] png, final byte[] lowerCaseKey, final byte[] lowerCaseValue) {
+        if (!isPng(png)) {
+            return false;
+        }
+        int position = PNG_SIGNATURE.length;
+        while (position + LENGTH_SIZE + TYPE_SIZE <= png.length) {
+            final int length = readInt(png, position);
+            final int type = readInt(png, position + LENGTH_SIZE);
+            final int dataStart = position + LENGTH_SIZE + TYPE_SIZE;
+            if (length < 0 || type == IEND_CHUNK || length > png.length - dataStart) {
+                return false;
+            }
+            if (type == TEXT_CHUNK && containsAll(png, dataStart, length, lowerCaseKey, lowerCaseValue)) {
+                return true;
+            }
+            if (type == INTERNATIONAL_TEXT_CHUNK && internationalTextContainsTag(png, dataStart, length, lowerCaseKey, lowerCaseValue)) {
+                return true;
+            }
+            if (type == COMPRESSED_TEXT_CHUNK && compressedTextContainsTag(png, dataStart, length, lowerCaseKey, lowerCaseValue)) {
+                return true;
+            }
+            position = dataStart + length + CRC_SIZE;
+        }
+        return false;
+    }
+
+    /**
+     * Searches the XMP packets of the APP1 segments that precede the compressed image data.
+     *
+     * @return whether any single XMP packet contains both the key and the value
+     */
+    public boolean jpegContainsTag(final byte[] jpeg, final byte[] lowerCaseKey, final byte[] lowerCaseValue) {
+        if (!isJpeg(jpeg)) {
+            return false;
+        }
+        int position = 2;
+        while (position + 2 <= jpeg.length) {
+            if ((jpeg[position] & 0xFF) != JPEG_MARKER_PREFIX) {
+                return false;
+            }
+            final int marker = jpeg[position + 1] & 0xFF;
+            if (marker == JPEG_MARKER_PREFIX) {
+                position++;
+                continue;
+            }
+            if (marker == JPEG_START_OF_SCAN || marker == JPEG_END_OF_IMAGE) {
+                return false;
+            }
+            if (isStandaloneJpegMarker(marker)) {
+                position += 2;
+                continue;
+            }
+            final int lengthStart = position + 2;
+            if (lengthStart + JPEG_SEGMENT_LENGTH_SIZE > jpeg.length) {
+                return false;
+            }
+            final int length = (jpeg[lengthStart] & 0xFF) << 8 | (jpeg[lengthStart + 1] & 0xFF);
+            if (length < JPEG_SEGMENT_LENGTH_SIZE || length > jpeg.length - lengthStart) {
+                return false;
+            }
+            final int dataStart = lengthStart + JPEG_SEGMENT_LENGTH_SIZE;
+            final int dataLength = length - JPEG_SEGMENT_LENGTH_SIZE;
+            if (marker == JPEG_APP1
+                    && startsWith(jpeg, dataStart, dataLength, XMP_NAMESPACE_PREFIX)
+                    && containsAll(jpeg, dataStart, dataLength, lowerCaseKey, lowerCaseValue)) {
+                return true;
+            }
+            position = lengthStart + length;
+        }
+        return false;
+    }
+
+    private boolean internationalTextContainsTag(final byte[] png, final int offset, final int length,
+                                                 final byte[] lowerCaseKey, final byte[] lowerCaseValue) {
+        final int keywordEnd = keywordEnd(png, offset, length);
+        if (keywordEnd < 0 || keywordEnd + 2 >= offset + length) {
+            return false;
+        }
+        final boolean compressed = png[keywordEnd + 1] != 0;
+        if (!compressed) {
+            return containsAll(png, offset, length, lowerCaseKey, lowerCaseValue);
+        }
+        final int languageTagEnd = indexOf(png, keywordEnd + 3, offset + length, (byte) 0);
+        final int translatedKeywordEnd = languageTagEnd < 0 ? -1 : indexOf(png, languageTagEnd + 1, offset + length, (byte) 0);
+        if (translatedKeywordEnd < 0) {
+            return false;
+        }
+        return inflatedTextContainsTag(png, offset, keywordEnd, translatedKeywordEnd + 1, offset + length, lowerCaseKey, lowerCaseValue);
+    }
+
+    private boolean compressedTextContainsTag(final byte[] png, final int offset, final int length,
+                                              final byte[] lowerCaseKey, final byte[] lowerCaseValue) {
+        final int keywordEnd = keywordEnd(png, offset, length);
+        if (keywordEnd < 0 || keywordEnd + 2 > offset + length) {
+            return false;
+        }
+        return inflatedTextContainsTag(png, offset, keywordEnd, keywordEnd + 2, offset + length, lowerCaseKey, lowerCaseValue);
+    }
+
+    private boolean inflatedTextContainsTag(final byte[] png, final int keywordStart, final int keywordEnd,
+                                            final int textStart, final int textEnd,
+                                            final byte[] lowerCaseKey, final byte[] lowerCaseValue) {
+        final int keywordLength = keywordEnd - keywordStart;
+        if (containsIgnoreCase(png, keywordStart, keywordLength, lowerCaseKey)) {
+            return inflatedContainsAll(png, textStart, textEnd - textStart, lowerCaseValue);
+        }
+        if (keywordLength == XMP_KEYWORD.length && containsIgnoreCase(png, keywordStart, keywordLength, XMP_KEYWORD)) {
+            return inflatedContainsAll(png, textStart, textEnd - textStart, lowerCaseKey, lowerCaseValue);
+        }
+        return false;
+    }
+
+    private boolean inflatedContainsAll(final byte[] data, final int offset, final int length, final byte[]... lowerCaseTerms) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, length);
+            final byte[] text = new byte[MAX_INFLATED_TEXT_BYTES];
+            int inflated = 0;
+            while (inflated < text.length && !inflater.finished() && !inflater.needsInput() && !inflater.needsDictionary()) {
+                inflated += inflater.inflate(text, inflated, text.length - inflated);
+            }
+            return containsAll(text, 0, inflated, lowerCaseTerms);
+        } catch (DataFormatException ex) {
+            return false;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int keywordEnd(final byte[] data, final int offset, final int length) {
+        return indexOf(data, offset, offset + Math.min(length, MAX_KEYWORD_SIZE + 1), (byte) 0);
+    }
+
+    private static boolean isStandaloneJpegMarker(final int marker) {
+        return marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7);
+    }
+
+    private static boolean containsAll(final byte[] data, final int offset, final int length, final byte[]... lowerCaseTerms) {
+        for (byte[] term : lowerCaseTerms) {
+            if (!containsIgnoreCase(data, offset, length, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(final byte[] data, final int offset, final int length, final byte[] lowerCaseTerm) {
+        final int last = offset + length - lowerCaseTerm.length;
+        for (int start = offset; start <= last; start++) {
+            int matched = 0;
+            while (matched < lowerCaseTerm.length && toLowerCase(data[start + matched]) == lowerCaseTerm[matched]) {
+                matched++;
+            }
+            if (matched == lowerCaseTerm.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(final byte[] data, final int offset, final int length, final byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(final byte[] data, final int from, final int to, final byte value) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte toLowerCase(final byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static int readInt(final byte[] data, final int position) {
+        return (data[position] & 0xFF) << 24
+                | (data[position + 1] & 0xFF) << 16
+                | (data[position + 2] & 0xFF) << 8
+                | (data[position + 3] & 0xFF);
+    }
+
+    private static int chunkType(final String type) {
+        return type.charAt(0) << 24 | type.charAt(1) << 16 | type.charAt(2) << 8 | type.charAt(3);
+    }
+}
@@ -0,0 +1,46 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Recognises graphics tagged in the XMP packet of a JPEG binary.
+ */
+public class JpegMetadataTypeResolver implements TypeResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JpegMetadataTypeResolver.class);
+    private static final int COST = 100;
+
+    private final ImageMetadataSniffer imageMetadataSniffer;
+
+    public JpegMetadataTypeResolver(final ImageMetadataSniffer imageMetadataSniffer) {
+        this.imageMetadataSniffer = imageMetadataSniffer;
+    }
+
+    @Override
+    public String getName() {
+        return "jpeg-metadata";
+    }
+
+    @Override
+    public int getCost() {
+        return COST;
+    }
+
+    @Override
+    public String resolve(final EomFile eomFile, final ImageAttributes attributes, final String mediaType, final String transactionId) {
+        if (!GraphicResolver.JPEG_MEDIA_TYPES.contains(mediaType)) {
+            return null;
+        }
+        if (!imageMetadataSniffer.isJpeg(eomFile.getValue())) {
+            LOGGER.warn("Image has mediaType={} but wasn't recognized as true JPEG file. uuid={} transactionId={}", mediaType, eomFile.getUuid(), transactionId);
+            return null;
+        }
+        if (imageMetadataSniffer.jpegContainsTag(eomFile.getValue(), GraphicResolver.SOURCE_GRAPHIC_KEY_BYTES, GraphicResolver.SOURCE_GRAPHIC_VALUE_BYTES)) {
+            return GraphicResolver.GRAPHIC_TYPE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+
+/**
+ * Settles media types that can never carry graphic metadata without looking at the content.
+ */
+public class MediaTypeResolver implements TypeResolver {
+
+    private static final int COST = 0;
+
+    @Override
+    public String getName() {
+        return "media-type";
+    }
+
+    @Override
+    public int getCost() {
+        return COST;
+    }
+
+    @Override
+    public String resolve(final EomFile eomFile, final ImageAttributes attributes, final String mediaType, final String transactionId) {
+        if (GraphicResolver.PNG_MEDIA_TYPE.equals(mediaType) || GraphicResolver.JPEG_MEDIA_TYPES.contains(mediaType)) {
+            return null;
+        }
+        return GraphicResolver.IMAGE_TYPE;
+    }
+}
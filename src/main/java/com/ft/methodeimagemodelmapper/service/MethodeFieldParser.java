@@ -0,0 +1,97 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the numeric fields of Methode system attributes and usage tickets without throwing. Each parser returns
+ * <code>null</code> for input it cannot parse, so that sparse or malformed data costs no exception. The parsers keep
+ * no state and are safe to share between threads.
+ */
+final class MethodeFieldParser {
+
+    /**
+     * The length of a <code>yyyyMMddHHmmss</code> timestamp.
+     */
+    static final int TIMESTAMP_LENGTH = 14;
+
+    private static final long SECONDS_PER_DAY = TimeUnit.DAYS.toSeconds(1);
+    private static final int MIN_YEAR = 1;
+
+    private MethodeFieldParser() {
+    }
+
+    /**
+     * Parses an ASCII decimal integer as {@link Integer#parseInt(String)} does, but returns <code>null</code> instead of throwing.
+     */
+    static Integer parseInt(final String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        final boolean negative = value.charAt(0) == '-';
+        final int start = negative || value.charAt(0) == '+' ? 1 : 0;
+        if (start == value.length()) {
+            return null;
+        }
+        final long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long result = 0;
+        for (int i = start; i < value.length(); i++) {
+            final int digit = digit(value.charAt(i));
+            if (digit < 0) {
+                return null;
+            }
+            result = result * 10 + digit;
+            if (result > limit) {
+                return null;
+            }
+        }
+        return (int) (negative ? -result : result);
+    }
+
+    /**
+     * Parses a <code>yyyyMMddHHmmss</code> timestamp in GMT. Like <code>SimpleDateFormat</code>, it skips leading
+     * whitespace and ignores whatever follows the timestamp. Fields out of range, such as a 13th month, are rejected
+     * rather than rolled over into the next field.
+     */
+    static Date parseTimestamp(final String value) {
+        if (value == null) {
+            return null;
+        }
+        final String timestamp = value.trim();
+        if (timestamp.length() < TIMESTAMP_LENGTH) {
+            return null;
+        }
+        final int year = number(timestamp, 0, 4);
+        final int month = number(timestamp, 4, 2);
+        final int day = number(timestamp, 6, 2);
+        final int hour = number(timestamp, 8, 2);
+        final int minute = number(timestamp, 10, 2);
+        final int second = number(timestamp, 12, 2);
+        if (year < MIN_YEAR || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59
+                || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        final long epochSecond = LocalDate.of(year, month, day).toEpochDay() * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+        return new Date(TimeUnit.SECONDS.toMillis(epochSecond));
+    }
+
+    private static int number(final String value, final int offset, final int length) {
+        int result = 0;
+        for (int i = offset; i < offset + length; i++) {
+            final int digit = digit(value.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static int digit(final char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+}
@@ -1,5 +1,8 @@
 package com.ft.methodeimagemodelmapper.service;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.ft.content.model.Content;
 import com.ft.content.model.Copyright;
 import com.ft.content.model.Distribution;
@@ -8,28 +11,19 @@ import com.ft.content.model.Syndication;
 import com.ft.methodeimagemodelmapper.exception.MethodeContentNotSupportedException;
 import com.ft.methodeimagemodelmapper.exception.TransformationException;
 import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSortedSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
-import java.io.StringReader;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
-import java.util.TimeZone;
 import java.util.UUID;
 
 public class MethodeImageModelMapper {
@@ -41,18 +35,71 @@ public class MethodeImageModelMapper {
     private static final String SOURCE_METHODE = "http://api.ft.com/system/FTCOM-METHODE";
     private static final String SOURCE_FOTOWARE = "http://api.ft.com/system/FT-FOTOWARE";
     private static final String FORMAT_UNSUPPORTED = "%s is not an %s.";
-    private static final String DATE_FORMAT = "yyyyMMddHHmmss";
+    private static final String WIDTH = "/props/imageInfo/width";
+    private static final String HEIGHT = "/props/imageInfo/height";
+    private static final String FILE_TYPE = "/props/imageInfo/fileType";
 
     private final String externalBinaryUrlBasePath;
     private final GraphicResolver graphicResolver;
-    private final List<String> externalBinaryUrlWhitelist;
+    private final ExternalBinaryUrlWhitelist externalBinaryUrlWhitelist;
+    private final AttributesExtractor attributesExtractor;
+    private final DocumentBuilderPool documentBuilderPool = new DocumentBuilderPool();
+    private final XPathRegistry xpaths = new XPathRegistry(WIDTH, HEIGHT, FILE_TYPE);
+    private final UsageTicketsReader usageTicketsReader = new UsageTicketsReader();
+    private final Timer attributesTimer;
+    private final Timer systemAttributesTimer;
+    private final Timer usageTicketsTimer;
+    private final Timer graphicResolverTimer;
+    private final Counter unsupported;
+    private final Counter missingWidth;
+    private final Counter malformedWidth;
+    private final Counter missingHeight;
+    private final Counter malformedHeight;
+    private final Counter missingPublishDate;
+    private final Counter malformedPublishDate;
 
     public MethodeImageModelMapper(String externalBinaryUrlBasePath,
                                    final List<String> externalBinaryUrlWhitelist,
                                    final GraphicResolver graphicResolver) {
+        this(externalBinaryUrlBasePath, externalBinaryUrlWhitelist, graphicResolver, new DomAttributesExtractor());
+    }
+
+    public MethodeImageModelMapper(String externalBinaryUrlBasePath,
+                                   final List<String> externalBinaryUrlWhitelist,
+                                   final GraphicResolver graphicResolver,
+                                   final AttributesExtractor attributesExtractor) {
+        this(externalBinaryUrlBasePath, externalBinaryUrlWhitelist, graphicResolver, attributesExtractor, new MetricRegistry());
+    }
+
+    public MethodeImageModelMapper(String externalBinaryUrlBasePath,
+                                   final List<String> externalBinaryUrlWhitelist,
+                                   final GraphicResolver graphicResolver,
+                                   final AttributesExtractor attributesExtractor,
+                                   final MetricRegistry metrics) {
+        this(externalBinaryUrlBasePath, new ExternalBinaryUrlWhitelist(externalBinaryUrlWhitelist, metrics), graphicResolver,
+                attributesExtractor, metrics);
+    }
+
+    public MethodeImageModelMapper(String externalBinaryUrlBasePath,
+                                   final ExternalBinaryUrlWhitelist externalBinaryUrlWhitelist,
+                                   final GraphicResolver graphicResolver,
+                                   final AttributesExtractor attributesExtractor,
+                                   final MetricRegistry metrics) {
         this.externalBinaryUrlBasePath = externalBinaryUrlBasePath;
         this.externalBinaryUrlWhitelist = externalBinaryUrlWhitelist;
         this.graphicResolver = graphicResolver;
+        this.attributesExtractor = attributesExtractor;
+        this.attributesTimer = metrics.timer(MetricRegistry.name(MethodeImageModelMapper.class, "attributes"));
+        this.systemAttributesTimer = metrics.timer(MetricRegistry.name(MethodeImageModelMapper.class, "system-attributes"));
+        this.usageTicketsTimer = metrics.timer(MetricRegistry.name(MethodeImageModelMapper.class, "usage-tickets"));
+        this.graphicResolverTimer = metrics.timer(MetricRegistry.name(MethodeImageModelMapper.class, "graphic-resolver"));
+        this.unsupported = metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "unsupported"));
+        this.missingWidth = metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "missing", "width"));
+        this.malformedWidth = metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "malformed", "width"));
+        this.missingHeight = metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "missing", "height"));
+        this.malformedHeight = metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "malformed", "height"));
+        this.missingPublishDate = metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "missing", "web-publication-date"));
+        this.malformedPublishDate = metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "malformed", "web-publication-date"));
     }
 
     public Content mapImageModel(EomFile eomFile, String transactionId, Date lastModifiedDate) {
@@ -62,6 +109,7 @@ public class MethodeImageModelMapper {
 
     Content transformAndHandleExceptions(EomFile eomFile, Action<Content> transformAction) {
         if (!isEomTypeSupported(eomFile)) {
+            unsupported.inc();
             throw new MethodeContentNotSupportedException(String.format(FORMAT_UNSUPPORTED, eomFile.getUuid(), IMAGE_TYPE));
         }
         try {
@@ -76,8 +124,6 @@ public class MethodeImageModelMapper {
     }
 
     private Content.Builder transformEomFileToContent(final EomFile eomFile, final String transactionId, Date lastModifiedDate) throws IOException, XPathExpressionException, ParserConfigurationException {
-        final DocumentBuilder documentBuilder = getDocumentBuilder();
-        final XPath xpath = XPathFactory.newInstance().newXPath();
         String caption = null;
         String altText = null;
         String copyrightNotice = null;
@@ -86,15 +132,16 @@ public class MethodeImageModelMapper {
         String rightsGroup = null;
         Identifier fotowareID = null;
         String externalBinaryUrl = null;
-        try {
-            final Document attributesDocument = documentBuilder.parse(new InputSource(new StringReader(eomFile.getAttributes())));
-            caption = xpath.evaluate("/meta/picture/web_information/caption", attributesDocument);
-            altText = xpath.evaluate("/meta/picture/web_information/alt_tag", attributesDocument);
+        ImageAttributes attributes = null;
+        try (Timer.Context ignored = attributesTimer.time()) {
+            attributes = attributesExtractor.extract(eomFile.getAttributes());
+            caption = attributes.getCaption();
+            altText = attributes.getAltTag();
 
             String manualCopyright, onlineCopyright;
 
-            onlineCopyright = xpath.evaluate("/meta/picture/web_information/online-source", attributesDocument);
-            manualCopyright = xpath.evaluate("/meta/picture/web_information/manual-source", attributesDocument);
+            onlineCopyright = attributes.getOnlineSource();
+            manualCopyright = attributes.getManualSource();
 
             copyrightNotice = firstOf(onlineCopyright, manualCopyright);
 
@@ -102,38 +149,40 @@ public class MethodeImageModelMapper {
                 copyrightNotice = "© " + copyrightNotice;
             }
 
-            String distributionValue = xpath.evaluate("/meta/picture/FTRights/FTAggregation", attributesDocument);
+            String distributionValue = attributes.getFtAggregation();
             if (!Strings.isNullOrEmpty(distributionValue)) {
             	canBeDistributed = Distribution.fromString(distributionValue);
             }
 
-            String syndicationValue = xpath.evaluate("/meta/picture/FTRights/FTSyndication", attributesDocument);
+            String syndicationValue = attributes.getFtSyndication();
             if (!Strings.isNullOrEmpty(distributionValue)) {
             	canBeSyndicated = Syndication.fromString(syndicationValue);
             }
 
-            String ftSource = xpath.evaluate("/meta/picture/FTRights/FTSource", attributesDocument);
+            String ftSource = attributes.getFtSource();
             if (!Strings.isNullOrEmpty(ftSource)) {
             	rightsGroup = ftSource;
             }
 
-            String ftFotoware = xpath.evaluate("/meta/picture/FTUsage/FTFotowareID", attributesDocument);
+            String ftFotoware = attributes.getFtFotowareId();
             if (!Strings.isNullOrEmpty(ftFotoware)) {
             	fotowareID = new Identifier(SOURCE_FOTOWARE, ftFotoware);
             }
 
-            externalBinaryUrl = resolveExternalBinaryUrl(eomFile, transactionId, xpath, attributesDocument);
+            externalBinaryUrl = resolveExternalBinaryUrl(eomFile, transactionId, attributes);
         } catch (SAXException ex) {
             LOGGER.warn("Failed retrieving attributes XML of image {}. Moving on without adding relevant properties.", eomFile.getUuid(), ex);
         }
         Integer width = null;
         Integer height = null;
         String mediaType = DEFAULT_MEDIATYPE;
-        try {
-            final Document systemAttributesDocument = documentBuilder.parse(new InputSource(new StringReader(eomFile.getSystemAttributes())));
-            width = transformWidth(eomFile.getUuid(), xpath.evaluate("/props/imageInfo/width", systemAttributesDocument));
-            height = transformHeight(eomFile.getUuid(), xpath.evaluate("/props/imageInfo/height", systemAttributesDocument));
-            final String mediaTypeSuffix = xpath.evaluate("/props/imageInfo/fileType", systemAttributesDocument);
+        try (Timer.Context ignored = systemAttributesTimer.time()) {
+            final Document systemAttributesDocument = documentBuilderPool.parse(eomFile.getSystemAttributes());
+            width = parseDimension(eomFile.getUuid(), "width", xpaths.evaluate(WIDTH, systemAttributesDocument),
+                    missingWidth, malformedWidth);
+            height = parseDimension(eomFile.getUuid(), "height", xpaths.evaluate(HEIGHT, systemAttributesDocument),
+                    missingHeight, malformedHeight);
+            final String mediaTypeSuffix = xpaths.evaluate(FILE_TYPE, systemAttributesDocument);
             if (!mediaTypeSuffix.isEmpty()) {
                 mediaType = MEDIATYPE_PREFIX + mediaTypeSuffix.toLowerCase();
             }
@@ -142,17 +191,21 @@ public class MethodeImageModelMapper {
         }
 
         Date publishDate = null;
-        try {
-            final Document usageTicketsDocument = documentBuilder.parse(new InputSource(new StringReader(eomFile.getUsageTickets())));
-            publishDate = transformDate(eomFile.getUuid(), xpath.evaluate("/tl/t[tp = 'web_publication'][count(/tl/t[tp = 'web_publication'])]/cd", usageTicketsDocument));
+        try (Timer.Context ignored = usageTicketsTimer.time()) {
+            publishDate = parsePublishDate(eomFile.getUuid(), usageTicketsReader.lastWebPublicationDate(eomFile.getUsageTickets()));
         } catch (SAXException ex) {
             LOGGER.warn("Failed retrieving usage tickets of image {}. Moving on without adding relevant properties.", eomFile.getUuid(), ex);
         }
 
+        String type;
+        try (Timer.Context ignored = graphicResolverTimer.time()) {
+            type = graphicResolver.resolveType(eomFile, attributes, mediaType, transactionId);
+        }
+
         String uuid = eomFile.getUuid();
         return Content.builder()
                 .withUuid(UUID.fromString(uuid))
-                .withType(graphicResolver.resolveType(eomFile, mediaType, transactionId))
+                .withType(type)
                 .withIdentifiers(ImmutableSortedSet.of(new Identifier(SOURCE_METHODE, uuid)))
                 .withDescription(altText)
                 .withTitle(caption)
@@ -171,13 +224,11 @@ public class MethodeImageModelMapper {
                 .withExternalBinaryUrl(externalBinaryUrl);
     }
 
-    private String resolveExternalBinaryUrl(EomFile eomFile, String transactionId, XPath xpath, Document attributesDocument) throws XPathExpressionException {
-        String externalBinaryUrl = xpath.evaluate("/meta/picture/ExternalUrl", attributesDocument);
-        for (final String sample : externalBinaryUrlWhitelist) {
-            if (externalBinaryUrl.matches(sample)) {
-                LOGGER.info("This image will be assigned an externalBinaryUrl from a custom set location. externalBinaryUrl={} transaction_id={}", externalBinaryUrl, transactionId);
-                return externalBinaryUrl;
-            }
+    private String resolveExternalBinaryUrl(EomFile eomFile, String transactionId, ImageAttributes attributes) {
+        String externalBinaryUrl = attributes.getExternalUrl();
+        if (externalBinaryUrlWhitelist.matches(externalBinaryUrl)) {
+            LOGGER.info("This image will be assigned an externalBinaryUrl from a custom set location. externalBinaryUrl={} transaction_id={}", externalBinaryUrl, transactionId);
+            return externalBinaryUrl;
         }
         return externalBinaryUrlBasePath + eomFile.getUuid();
     }
@@ -194,39 +245,31 @@ public class MethodeImageModelMapper {
         return null;
     }
 
-    private Integer transformWidth(final String uuid, final String widthString) {
-        try {
-            return Integer.parseInt(widthString);
-        } catch (NumberFormatException ex) {
-            LOGGER.warn("Width was not supplied by the source for uuid {} and width '{}'.", uuid, widthString);
+    private Integer parseDimension(final String uuid, final String field, final String value,
+                                   final Counter missing, final Counter malformed) {
+        if (value.isEmpty()) {
+            missing.inc();
+            return null;
         }
-        return null;
-    }
-
-    private Integer transformHeight(final String uuid, final String heightString) {
-        try {
-            return Integer.parseInt(heightString);
-        } catch (NumberFormatException ex) {
-            LOGGER.warn("Height couldn't be converted to an integer for uuid {} and height '{}'.", uuid, heightString);
+        final Integer dimension = MethodeFieldParser.parseInt(value);
+        if (dimension == null) {
+            malformed.inc();
+            LOGGER.debug("Malformed {} for uuid {}: '{}'.", field, uuid, value);
         }
-        return null;
+        return dimension;
     }
 
-    private Date transformDate(final String uuid, final String dateString) {
-        final DateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
-        try {
-            dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-            return dateFormat.parse(dateString);
-        } catch (ParseException ex) {
-            LOGGER.warn("Date couldn't be parsed for uuid {} and raw value '{}'.", uuid, dateString);
+    private Date parsePublishDate(final String uuid, final String value) {
+        if (value.isEmpty()) {
+            missingPublishDate.inc();
+            return null;
         }
-        return null;
-    }
-
-    private DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
-        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-        return documentBuilderFactory.newDocumentBuilder();
+        final Date publishDate = MethodeFieldParser.parseTimestamp(value);
+        if (publishDate == null) {
+            malformedPublishDate.inc();
+            LOGGER.debug("Malformed web publication date for uuid {}: '{}'.", uuid, value);
+        }
+        return publishDate;
     }
 
     interface Action<T> {
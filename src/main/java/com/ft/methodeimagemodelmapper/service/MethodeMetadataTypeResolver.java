@@ -0,0 +1,32 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+
+/**
+ * Recognises PNG graphics flagged through the <code>FTImageType</code> Methode attribute.
+ */
+public class MethodeMetadataTypeResolver implements TypeResolver {
+
+    private static final int COST = 1;
+
+    @Override
+    public String getName() {
+        return "methode-metadata";
+    }
+
+    @Override
+    public int getCost() {
+        return COST;
+    }
+
+    @Override
+    public String resolve(final EomFile eomFile, final ImageAttributes attributes, final String mediaType, final String transactionId) {
+        if (GraphicResolver.PNG_MEDIA_TYPE.equals(mediaType)
+                && attributes != null
+                && GraphicResolver.SOURCE_GRAPHIC_VALUE.equals(attributes.getFtImageType())) {
+            return GraphicResolver.GRAPHIC_TYPE;
+        }
+        return null;
+    }
+}
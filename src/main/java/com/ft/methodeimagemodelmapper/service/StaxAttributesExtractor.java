@@ -0,0 +1,156 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+import com.google.common.collect.ImmutableMap;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Reads the same values as {@link DomAttributesExtractor} in a single forward pass over the XML, without building a DOM.
+ * The document is always read to the end, so malformed attributes are rejected exactly as the DOM parser would reject them.
+ */
+public class StaxAttributesExtractor implements AttributesExtractor {
+
+    private static final String META = "meta";
+    private static final String PICTURE = "picture";
+    private static final int PICTURE_CHILD_DEPTH = 3;
+    private static final int PICTURE_GRANDCHILD_DEPTH = 4;
+
+    static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+    private enum Field {
+        CAPTION("web_information/caption"),
+        ALT_TAG("web_information/alt_tag"),
+        ONLINE_SOURCE("web_information/online-source"),
+        MANUAL_SOURCE("web_information/manual-source"),
+        FT_AGGREGATION("FTRights/FTAggregation"),
+        FT_SYNDICATION("FTRights/FTSyndication"),
+        FT_SOURCE("FTRights/FTSource"),
+        FT_FOTOWARE_ID("FTUsage/FTFotowareID"),
+        EXTERNAL_URL("ExternalUrl"),
+        FT_IMAGE_TYPE("FTImageType");
+
+        private final String pathFromPicture;
+
+        Field(String pathFromPicture) {
+            this.pathFromPicture = pathFromPicture;
+        }
+    }
+
+    private static final Map<String, Field> FIELDS_BY_PATH;
+
+    static {
+        final ImmutableMap.Builder<String, Field> fields = ImmutableMap.builder();
+        for (Field field : Field.values()) {
+            fields.put(field.pathFromPicture, field);
+        }
+        FIELDS_BY_PATH = fields.build();
+    }
+
+    @Override
+    public ImageAttributes extract(final String attributes) throws SAXException {
+        final StringReader source = new StringReader(attributes);
+        final Map<Field, String> values = new EnumMap<>(Field.class);
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(source);
+            String[] path = new String[8];
+            int depth = 0;
+            Field capturing = null;
+            int captureDepth = 0;
+            final StringBuilder text = new StringBuilder();
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (depth == path.length) {
+                            path = Arrays.copyOf(path, depth * 2);
+                        }
+                        path[depth++] = reader.getLocalName();
+                        if (capturing == null) {
+                            final Field field = fieldAt(path, depth);
+                            if (field != null && !values.containsKey(field)) {
+                                capturing = field;
+                                captureDepth = depth;
+                                text.setLength(0);
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (capturing != null && depth == captureDepth) {
+                            values.put(capturing, text.toString());
+                            capturing = null;
+                        }
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (capturing != null) {
+                            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new SAXException(ex.getMessage(), ex);
+        } finally {
+            close(reader);
+        }
+
+        return new ImageAttributes.Builder()
+                .withCaption(values.getOrDefault(Field.CAPTION, ""))
+                .withAltTag(values.getOrDefault(Field.ALT_TAG, ""))
+                .withOnlineSource(values.getOrDefault(Field.ONLINE_SOURCE, ""))
+                .withManualSource(values.getOrDefault(Field.MANUAL_SOURCE, ""))
+                .withFtAggregation(values.getOrDefault(Field.FT_AGGREGATION, ""))
+                .withFtSyndication(values.getOrDefault(Field.FT_SYNDICATION, ""))
+                .withFtSource(values.getOrDefault(Field.FT_SOURCE, ""))
+                .withFtFotowareId(values.getOrDefault(Field.FT_FOTOWARE_ID, ""))
+                .withExternalUrl(values.getOrDefault(Field.EXTERNAL_URL, ""))
+                .withFtImageType(values.getOrDefault(Field.FT_IMAGE_TYPE, ""))
+                .build();
+    }
+
+    private Field fieldAt(final String[] path, final int depth) {
+        if (depth != PICTURE_CHILD_DEPTH && depth != PICTURE_GRANDCHILD_DEPTH) {
+            return null;
+        }
+        if (!META.equals(path[0]) || !PICTURE.equals(path[1])) {
+            return null;
+        }
+        if (depth == PICTURE_CHILD_DEPTH) {
+            return FIELDS_BY_PATH.get(path[2]);
+        }
+        return FIELDS_BY_PATH.get(path[2] + "/" + path[3]);
+    }
+
+    static void close(final XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ex) {
+                // nothing left to release
+            }
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        // Methode references an external DTD that is not available to us; resolve it to nothing, as the DOM parser does.
+        factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> new ByteArrayInputStream(new byte[0]));
+        return factory;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+
+/**
+ * One check in a {@link TypeResolverChain}.
+ */
+public interface TypeResolver {
+
+    /**
+     * Name under which the resolver's metrics are published.
+     */
+    String getName();
+
+    /**
+     * Estimated relative cost of {@link #resolve}; cheaper resolvers run first.
+     */
+    int getCost();
+
+    /**
+     * @param attributes attributes already extracted from the same {@link EomFile}, or <code>null</code>
+     * @return the content type if this resolver can decide it, otherwise <code>null</code>
+     */
+    String resolve(EomFile eomFile, ImageAttributes attributes, String mediaType, String transactionId);
+}
@@ -0,0 +1,85 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs {@link TypeResolver}s from the cheapest to the most expensive and returns the first decisive answer.
+ * Each resolver gets a timer and a meter of decisive answers, plus a hit-rate gauge relating the two.
+ */
+public class TypeResolverChain {
+
+    private final List<InstrumentedResolver> resolvers;
+    private final String defaultType;
+
+    public TypeResolverChain(final List<? extends TypeResolver> resolvers, final String defaultType, final MetricRegistry metrics) {
+        final List<TypeResolver> ordered = new ArrayList<>(resolvers);
+        Collections.sort(ordered, Comparator.comparingInt(TypeResolver::getCost));
+        final List<InstrumentedResolver> instrumented = new ArrayList<>(ordered.size());
+        for (TypeResolver resolver : ordered) {
+            instrumented.add(new InstrumentedResolver(resolver, metrics));
+        }
+        this.resolvers = Collections.unmodifiableList(instrumented);
+        this.defaultType = defaultType;
+    }
+
+    public String resolve(final EomFile eomFile, final ImageAttributes attributes, final String mediaType, final String transactionId) {
+        for (InstrumentedResolver resolver : resolvers) {
+            final String type = resolver.resolve(eomFile, attributes, mediaType, transactionId);
+            if (type != null) {
+                return type;
+            }
+        }
+        return defaultType;
+    }
+
+    List<TypeResolver> getResolvers() {
+        final List<TypeResolver> result = new ArrayList<>(resolvers.size());
+        for (InstrumentedResolver resolver : resolvers) {
+            result.add(resolver.delegate);
+        }
+        return result;
+    }
+
+    private static class InstrumentedResolver {
+
+        private final TypeResolver delegate;
+        private final Timer timer;
+        private final Meter decisive;
+
+        InstrumentedResolver(final TypeResolver delegate, final MetricRegistry metrics) {
+            this.delegate = delegate;
+            this.timer = metrics.timer(MetricRegistry.name(TypeResolverChain.class, delegate.getName(), "resolve"));
+            this.decisive = metrics.meter(MetricRegistry.name(TypeResolverChain.class, delegate.getName(), "decisive"));
+            final String hitRateName = MetricRegistry.name(TypeResolverChain.class, delegate.getName(), "hit-rate");
+            if (!metrics.getNames().contains(hitRateName)) {
+                metrics.register(hitRateName, new RatioGauge() {
+                    @Override
+                    protected Ratio getRatio() {
+                        return Ratio.of(decisive.getCount(), timer.getCount());
+                    }
+                });
+            }
+        }
+
+        String resolve(final EomFile eomFile, final ImageAttributes attributes, final String mediaType, final String transactionId) {
+            final String type;
+            try (Timer.Context ignored = timer.time()) {
+                type = delegate.resolve(eomFile, attributes, mediaType, transactionId);
+            }
+            if (type != null) {
+                decisive.mark();
+            }
+            return type;
+        }
+    }
+}
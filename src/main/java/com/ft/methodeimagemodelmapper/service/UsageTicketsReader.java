@@ -0,0 +1,97 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+
+/**
+ * Finds the creation date of the last web publication in Methode usage tickets, in a single forward pass over the XML
+ * and without building a DOM. It returns what <code>/tl/t[tp = 'web_publication'][last()]/cd</code> would: the text
+ * of the first <code>cd</code> of the last ticket with a <code>tp</code> of <code>web_publication</code>, or an empty
+ * string if there is none. The document is always read to the end, so malformed tickets are rejected exactly as the DOM
+ * parser would reject them.
+ */
+public class UsageTicketsReader {
+
+    private static final String TICKET_LIST = "tl";
+    private static final String TICKET = "t";
+    private static final String TICKET_TYPE = "tp";
+    private static final String CREATION_DATE = "cd";
+    private static final String WEB_PUBLICATION = "web_publication";
+    private static final int TICKET_DEPTH = 2;
+    private static final int TICKET_FIELD_DEPTH = 3;
+
+    public String lastWebPublicationDate(final String usageTickets) throws SAXException {
+        final StringReader source = new StringReader(usageTickets);
+        StringBuilder ticketDate = new StringBuilder();
+        StringBuilder lastDate = new StringBuilder();
+        final StringBuilder ticketType = new StringBuilder();
+        XMLStreamReader reader = null;
+        try {
+            reader = StaxAttributesExtractor.XML_INPUT_FACTORY.createXMLStreamReader(source);
+            boolean inTicketList = false;
+            boolean inTicket = false;
+            boolean webPublication = false;
+            boolean hasDate = false;
+            StringBuilder capturing = null;
+            int depth = 0;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        if (depth == 1) {
+                            inTicketList = TICKET_LIST.equals(reader.getLocalName());
+                        } else if (depth == TICKET_DEPTH) {
+                            inTicket = inTicketList && TICKET.equals(reader.getLocalName());
+                            webPublication = false;
+                            hasDate = false;
+                            ticketDate.setLength(0);
+                        } else if (depth == TICKET_FIELD_DEPTH && inTicket) {
+                            if (TICKET_TYPE.equals(reader.getLocalName())) {
+                                ticketType.setLength(0);
+                                capturing = ticketType;
+                            } else if (CREATION_DATE.equals(reader.getLocalName()) && !hasDate) {
+                                capturing = ticketDate;
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (depth == TICKET_FIELD_DEPTH && capturing != null) {
+                            if (capturing == ticketType) {
+                                webPublication |= WEB_PUBLICATION.contentEquals(ticketType);
+                            } else {
+                                hasDate = true;
+                            }
+                            capturing = null;
+                        } else if (depth == TICKET_DEPTH && inTicket) {
+                            if (webPublication) {
+                                final StringBuilder previous = lastDate;
+                                lastDate = ticketDate;
+                                ticketDate = previous;
+                            }
+                            inTicket = false;
+                        }
+                        depth--;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (capturing != null) {
+                            capturing.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new SAXException(ex.getMessage(), ex);
+        } finally {
+            StaxAttributesExtractor.close(reader);
+        }
+        return lastDate.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.google.common.collect.ImmutableSet;
+import org.w3c.dom.Document;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles a fixed set of XPath expressions once per thread, as compiled expressions must not be evaluated concurrently.
+ */
+public class XPathRegistry {
+
+    private final XPathFactory xPathFactory = XPathFactory.newInstance();
+    private final Set<String> expressions;
+    private final ThreadLocal<Map<String, XPathExpression>> compiledExpressions = new ThreadLocal<>();
+
+    public XPathRegistry(final String... expressions) {
+        this.expressions = ImmutableSet.copyOf(expressions);
+    }
+
+    public String evaluate(final String expression, final Document document) throws XPathExpressionException {
+        final XPathExpression compiled = getCompiledExpressions().get(expression);
+        if (compiled == null) {
+            throw new IllegalArgumentException("XPath expression is not registered: " + expression);
+        }
+        return compiled.evaluate(document);
+    }
+
+    private Map<String, XPathExpression> getCompiledExpressions() throws XPathExpressionException {
+        Map<String, XPathExpression> compiled = compiledExpressions.get();
+        if (compiled == null) {
+            compiled = compileAll();
+            compiledExpressions.set(compiled);
+        }
+        return compiled;
+    }
+
+    private Map<String, XPathExpression> compileAll() throws XPathExpressionException {
+        final XPath xpath;
+        synchronized (xPathFactory) {
+            xpath = xPathFactory.newXPath();
+        }
+        final Map<String, XPathExpression> compiled = new HashMap<>();
+        for (String expression : expressions) {
+            compiled.put(expression, xpath.compile(expression));
+        }
+        return compiled;
+    }
+}
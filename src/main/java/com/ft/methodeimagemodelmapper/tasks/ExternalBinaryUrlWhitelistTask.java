@@ -0,0 +1,46 @@
+package com.ft.methodeimagemodelmapper.tasks;
+
+import com.ft.methodeimagemodelmapper.service.ExternalBinaryUrlWhitelist;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import io.dropwizard.servlets.tasks.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Replaces the external binary URL whitelist with the <code>pattern</code> parameters of the request, then prints the
+ * whitelist in use. Without parameters it only prints it. The change is not persisted: a restart restores the
+ * configured whitelist.
+ */
+public class ExternalBinaryUrlWhitelistTask extends Task {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExternalBinaryUrlWhitelistTask.class);
+    private static final String PATTERN = "pattern";
+
+    private final ExternalBinaryUrlWhitelist whitelist;
+
+    public ExternalBinaryUrlWhitelistTask(final ExternalBinaryUrlWhitelist whitelist) {
+        super("external-binary-url-whitelist");
+        this.whitelist = whitelist;
+    }
+
+    @Override
+    public void execute(final ImmutableMultimap<String, String> parameters, final PrintWriter output) {
+        final List<String> patterns = ImmutableList.copyOf(parameters.get(PATTERN));
+        if (!patterns.isEmpty()) {
+            try {
+                whitelist.update(patterns);
+                LOGGER.info("External binary URL whitelist replaced. whitelist={}", patterns);
+            } catch (PatternSyntaxException ex) {
+                output.println("Whitelist unchanged, invalid pattern: " + ex.getMessage());
+            }
+        }
+        for (String pattern : whitelist.getPatterns()) {
+            output.println(pattern);
+        }
+    }
+}
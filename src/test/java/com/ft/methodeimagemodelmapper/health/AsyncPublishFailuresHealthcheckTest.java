@@ -0,0 +1,76 @@
+package com.ft.methodeimagemodelmapper.health;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Meter;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AsyncPublishFailuresHealthcheckTest {
+
+    private final Meter failures = new Meter();
+    private final ManualClock clock = new ManualClock();
+    private final AsyncPublishFailuresHealthcheck healthcheck = new AsyncPublishFailuresHealthcheck(failures,
+            new HealthcheckConfiguration("async publishing", 2, "business impact text", "tech summary", "panic guide url"),
+            5, TimeUnit.MINUTES, clock);
+
+    @Test
+    public void shouldBeHealthyWithoutFailures() throws Exception {
+        assertThat(healthcheck.checkAdvanced().status(), is(equalTo("OK")));
+    }
+
+    @Test
+    public void shouldReturnErrorAfterAFailure() throws Exception {
+        failures.mark();
+
+        assertThat(healthcheck.checkAdvanced().status(), is(equalTo("ERROR")));
+        clock.advance(TimeUnit.MINUTES.toMillis(4));
+        assertThat(healthcheck.checkAdvanced().status(), is(equalTo("ERROR")));
+    }
+
+    @Test
+    public void shouldRecoverOnceTheWindowPassesWithoutFailures() throws Exception {
+        failures.mark();
+        healthcheck.checkAdvanced();
+
+        clock.advance(TimeUnit.MINUTES.toMillis(5));
+
+        assertThat(healthcheck.checkAdvanced().status(), is(equalTo("OK")));
+    }
+
+    @Test
+    public void shouldRestartTheWindowOnANewFailure() throws Exception {
+        failures.mark();
+        healthcheck.checkAdvanced();
+        clock.advance(TimeUnit.MINUTES.toMillis(4));
+        failures.mark();
+        healthcheck.checkAdvanced();
+
+        clock.advance(TimeUnit.MINUTES.toMillis(4));
+
+        assertThat(healthcheck.checkAdvanced().status(), is(equalTo("ERROR")));
+    }
+
+    private static class ManualClock extends Clock {
+
+        private long millis;
+
+        void advance(final long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long getTick() {
+            return TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long getTime() {
+            return millis;
+        }
+    }
+}
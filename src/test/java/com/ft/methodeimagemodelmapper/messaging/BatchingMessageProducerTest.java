@@ -0,0 +1,178 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.MetricRegistry;
+import com.ft.messagequeueproducer.MessageProducer;
+import com.ft.messaging.standards.message.v1.Message;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingMessageProducerTest {
+
+    private static final long LINGER_MILLIS = 50;
+
+    @Mock
+    private MessageProducer delegate;
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private BatchingMessageProducer producer;
+
+    @Before
+    public void setUp() {
+        producer = new BatchingMessageProducer(delegate, 3, 1000, LINGER_MILLIS, scheduler, metrics);
+    }
+
+    @Test
+    public void thatMessagesAreHeldUntilMaxMessagesIsReached() {
+        final Message first = message("a");
+        final Message second = message("b");
+        final Message third = message("c");
+
+        producer.send(Collections.singletonList(first));
+        producer.send(Collections.singletonList(second));
+        verify(delegate, never()).send(anyListOf(Message.class));
+
+        producer.send(Collections.singletonList(third));
+        verify(delegate).send(Arrays.asList(first, second, third));
+    }
+
+    @Test
+    public void thatBatchIsSentWhenMaxBytesIsReached() {
+        final Message large = message(new String(new char[600]));
+        final Message larger = message(new String(new char[400]));
+
+        producer.send(Arrays.asList(large, larger));
+
+        verify(delegate).send(Arrays.asList(large, larger));
+    }
+
+    @Test
+    public void thatBatchIsSentWhenLingerExpires() {
+        final Message message = message("a");
+        producer.send(Collections.singletonList(message));
+
+        lingerTask().run();
+
+        verify(delegate).send(Collections.singletonList(message));
+    }
+
+    @Test
+    public void thatExpiredLingerDoesNotFlushALaterBatch() {
+        producer.send(Arrays.asList(message("a"), message("b"), message("c")));
+        producer.send(Collections.singletonList(message("d")));
+
+        final ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(2)).schedule(tasks.capture(), eq(LINGER_MILLIS), eq(TimeUnit.MILLISECONDS));
+        tasks.getAllValues().get(0).run();
+
+        verify(delegate, times(1)).send(anyListOf(Message.class));
+    }
+
+    @Test
+    public void thatPendingMessagesAreSentOnStop() {
+        final Message message = message("a");
+        producer.send(Collections.singletonList(message));
+
+        producer.stop();
+
+        verify(delegate).send(Collections.singletonList(message));
+    }
+
+    @Test
+    public void thatFailedBatchIsCountedAndNotRethrown() {
+        doThrow(new RuntimeException("kafka-proxy unavailable")).when(delegate).send(anyListOf(Message.class));
+
+        producer.send(Arrays.asList(message("a"), message("b"), message("c")));
+
+        assertThat(metrics.meter(MetricRegistry.name(BatchingMessageProducer.class, "failed-messages")).getCount(), equalTo(3L));
+    }
+
+    @Test
+    public void thatDeliveryCallbackRunsOnceTheBatchIsPublished() {
+        final AtomicInteger delivered = new AtomicInteger();
+        producer.send(message("a"), delivered::incrementAndGet);
+        producer.send(message("b"), delivered::incrementAndGet);
+        assertThat(delivered.get(), equalTo(0));
+
+        producer.send(message("c"), delivered::incrementAndGet);
+
+        assertThat(delivered.get(), equalTo(3));
+    }
+
+    @Test
+    public void thatDeliveryCallbackIsNotRunWhenTheBatchFails() {
+        doThrow(new RuntimeException("kafka-proxy unavailable")).when(delegate).send(anyListOf(Message.class));
+        final AtomicInteger delivered = new AtomicInteger();
+
+        producer.send(message("a"), delivered::incrementAndGet);
+        producer.flush();
+
+        assertThat(delivered.get(), equalTo(0));
+    }
+
+    @Test(timeout = 5000)
+    public void thatMessagesAreQueuedWhileABatchIsBeingPublished() throws Exception {
+        final CountDownLatch publishing = new CountDownLatch(1);
+        final CountDownLatch proxyResponds = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            publishing.countDown();
+            proxyResponds.await();
+            return null;
+        }).doNothing().when(delegate).send(anyListOf(Message.class));
+        final Thread flusher = new Thread(() -> producer.send(Arrays.asList(message("a"), message("b"), message("c"))));
+        flusher.start();
+        publishing.await();
+
+        producer.send(Collections.singletonList(message("d")));
+        proxyResponds.countDown();
+        flusher.join();
+        producer.flush();
+
+        verify(delegate, times(2)).send(anyListOf(Message.class));
+    }
+
+    @Test
+    public void thatBatchSizeAndLingerAreRecorded() {
+        producer.send(Arrays.asList(message("a"), message("b")));
+        lingerTask().run();
+
+        assertThat(metrics.histogram(MetricRegistry.name(BatchingMessageProducer.class, "batch-size")).getSnapshot().getMax(), equalTo(2L));
+        assertThat(metrics.histogram(MetricRegistry.name(BatchingMessageProducer.class, "linger")).getCount(), equalTo(1L));
+    }
+
+    private Runnable lingerTask() {
+        final ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(task.capture(), eq(LINGER_MILLIS), eq(TimeUnit.MILLISECONDS));
+        return task.getValue();
+    }
+
+    private static Message message(final String body) {
+        return new Message.Builder().withMessageId(UUID.randomUUID()).withMessageBody(body).build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ft.content.model.Content;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ContentDeduplicatorTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final UUID UUID_1 = UUID.fromString("d7625378-d4cd-11e2-bce1-002128161462");
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final AtomicInteger publishes = new AtomicInteger();
+
+    @Test
+    public void thatFirstVersionIsPublished() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(OBJECT_MAPPER, 10, false, metrics);
+
+        assertThat(deduplicator.publishIfChanged(content("title", "tid_1", 1), publishes::incrementAndGet), equalTo(true));
+        assertThat(publishes.get(), equalTo(1));
+    }
+
+    @Test
+    public void thatChangeInVolatileFieldsOnlyIsSuppressed() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(OBJECT_MAPPER, 10, false, metrics);
+
+        deduplicator.publishIfChanged(content("title", "tid_1", 1), publishes::incrementAndGet);
+        final boolean published = deduplicator.publishIfChanged(content("title", "tid_2", 2), publishes::incrementAndGet);
+
+        assertThat(published, equalTo(false));
+        assertThat(publishes.get(), equalTo(1));
+        assertThat(metrics.meter(MetricRegistry.name(ContentDeduplicator.class, "suppressed")).getCount(), equalTo(1L));
+        assertThat(suppressionRate(), equalTo(0.5));
+    }
+
+    @Test
+    public void thatChangedModelIsPublished() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(OBJECT_MAPPER, 10, false, metrics);
+
+        deduplicator.publishIfChanged(content("title", "tid_1", 1), publishes::incrementAndGet);
+        deduplicator.publishIfChanged(content("new title", "tid_2", 2), publishes::incrementAndGet);
+
+        assertThat(publishes.get(), equalTo(2));
+    }
+
+    @Test
+    public void thatUnchangedModelIsPublishedWhenAlwaysEmitting() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(OBJECT_MAPPER, 10, true, metrics);
+
+        deduplicator.publishIfChanged(content("title", "tid_1", 1), publishes::incrementAndGet);
+        deduplicator.publishIfChanged(content("title", "tid_2", 2), publishes::incrementAndGet);
+
+        assertThat(publishes.get(), equalTo(2));
+        assertThat(metrics.meter(MetricRegistry.name(ContentDeduplicator.class, "unchanged")).getCount(), equalTo(1L));
+        assertThat(metrics.meter(MetricRegistry.name(ContentDeduplicator.class, "suppressed")).getCount(), equalTo(0L));
+    }
+
+    @Test
+    public void thatFailedPublishIsNotRemembered() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(OBJECT_MAPPER, 10, false, metrics);
+
+        try {
+            deduplicator.publishIfChanged(content("title", "tid_1", 1), () -> {
+                throw new IllegalStateException("kafka-proxy unavailable");
+            });
+        } catch (IllegalStateException expected) {
+        }
+        deduplicator.publishIfChanged(content("title", "tid_2", 2), publishes::incrementAndGet);
+
+        assertThat(publishes.get(), equalTo(1));
+    }
+
+    @Test
+    public void thatUndeliveredPublishIsNotRemembered() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(OBJECT_MAPPER, 10, false, metrics);
+
+        deduplicator.publishIfChanged(content("title", "tid_1", 1), delivered -> publishes.incrementAndGet());
+        deduplicator.publishIfChanged(content("title", "tid_2", 2), delivered -> {
+            publishes.incrementAndGet();
+            delivered.run();
+        });
+        final boolean published = deduplicator.publishIfChanged(content("title", "tid_3", 3), publishes::incrementAndGet);
+
+        assertThat(published, equalTo(false));
+        assertThat(publishes.get(), equalTo(2));
+    }
+
+    @Test
+    public void thatVersionPublishedWhileAnotherIsPendingIsNotSuppressed() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(OBJECT_MAPPER, 10, false, metrics);
+        final Runnable[] pending = new Runnable[1];
+
+        deduplicator.publishIfChanged(content("title", "tid_1", 1), publishes::incrementAndGet);
+        deduplicator.publishIfChanged(content("new title", "tid_2", 2), delivered -> {
+            publishes.incrementAndGet();
+            pending[0] = delivered;
+        });
+        final boolean published = deduplicator.publishIfChanged(content("title", "tid_3", 3), publishes::incrementAndGet);
+        pending[0].run();
+
+        assertThat(published, equalTo(true));
+        assertThat(publishes.get(), equalTo(3));
+        assertThat(deduplicator.publishIfChanged(content("title", "tid_4", 4), publishes::incrementAndGet), equalTo(false));
+    }
+
+    @Test
+    public void thatForgottenContentIsPublishedAgain() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(OBJECT_MAPPER, 10, false, metrics);
+
+        deduplicator.publishIfChanged(content("title", "tid_1", 1), publishes::incrementAndGet);
+        deduplicator.forget(UUID_1.toString());
+        deduplicator.publishIfChanged(content("title", "tid_2", 2), publishes::incrementAndGet);
+
+        assertThat(publishes.get(), equalTo(2));
+    }
+
+    private double suppressionRate() {
+        final Gauge gauge = metrics.getGauges().get(MetricRegistry.name(ContentDeduplicator.class, "suppression-rate"));
+        return (Double) gauge.getValue();
+    }
+
+    private static Content content(final String title, final String publishReference, final long lastModified) {
+        return Content.builder()
+                .withUuid(UUID_1)
+                .withTitle(title)
+                .withPublishReference(publishReference)
+                .withLastModified(new Date(lastModified))
+                .build();
+    }
+}
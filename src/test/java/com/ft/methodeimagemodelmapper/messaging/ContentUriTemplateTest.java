@@ -0,0 +1,46 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import org.junit.Test;
+
+import javax.ws.rs.core.UriBuilder;
+import java.net.URI;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ContentUriTemplateTest {
+
+    @Test
+    public void thatTemplateExpandsLikeTheBuilder() {
+        assertExpandsLikeBuilder(UriBuilder.fromUri("http://www.example.org/content").path("{uuid}"), true);
+        assertExpandsLikeBuilder(UriBuilder.fromUri("http://www.example.org/content/").path("{uuid}"), true);
+        assertExpandsLikeBuilder(UriBuilder.fromUri("http://www.example.org/content?source=methode").path("{uuid}"), true);
+        assertExpandsLikeBuilder(UriBuilder.fromUri("http://www.example.org/my%20content").path("{uuid}"), true);
+    }
+
+    @Test
+    public void thatBuilderIsUsedWhenTemplateHasNoUuid() {
+        assertExpandsLikeBuilder(UriBuilder.fromUri("http://www.example.org/content"), false);
+    }
+
+    @Test
+    public void thatUuidsNeedingEncodingAreBuilt() {
+        final UriBuilder builder = UriBuilder.fromUri("http://www.example.org/content").path("{uuid}");
+        final ContentUriTemplate template = new ContentUriTemplate(builder);
+
+        assertThat(template.contentUri("not a uuid"), equalTo(builder.build("not a uuid").toString()));
+        assertThat(template.relativeUrl("not a uuid"), equalTo("/content/not%20a%20uuid"));
+    }
+
+    private static void assertExpandsLikeBuilder(final UriBuilder builder, final boolean templated) {
+        final ContentUriTemplate template = new ContentUriTemplate(builder);
+        final String uuid = UUID.randomUUID().toString();
+        final URI expected = builder.build(uuid);
+
+        assertThat(template.isTemplated(), equalTo(templated));
+        assertThat(template.contentUri(uuid), equalTo(expected.toString()));
+        assertThat(template.relativeUrl(uuid),
+                equalTo(UriBuilder.fromPath(expected.getPath()).replaceQuery(expected.getQuery()).build().toString()));
+    }
+}
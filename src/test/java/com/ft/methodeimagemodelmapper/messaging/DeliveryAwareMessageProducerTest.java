@@ -0,0 +1,64 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.MetricRegistry;
+import com.ft.messagequeueproducer.MessageProducer;
+import com.ft.messaging.standards.message.v1.Message;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeliveryAwareMessageProducerTest {
+
+    @Mock
+    private MessageProducer delegate;
+    @Mock
+    private Runnable onDelivered;
+
+    @Test
+    public void thatPlainProducerPublishesBeforeReportingDelivery() {
+        final Message message = new Message.Builder().withMessageId(UUID.randomUUID()).withMessageBody("a").build();
+
+        DeliveryAwareMessageProducer.of(delegate).send(message, onDelivered);
+
+        final InOrder inOrder = inOrder(delegate, onDelivered);
+        inOrder.verify(delegate).send(Collections.singletonList(message));
+        inOrder.verify(onDelivered).run();
+    }
+
+    @Test
+    public void thatFailedPublishIsNotReportedAsDelivered() {
+        doThrow(new RuntimeException("kafka-proxy unavailable")).when(delegate).send(anyListOf(Message.class));
+        final Message message = new Message.Builder().withMessageId(UUID.randomUUID()).withMessageBody("a").build();
+
+        try {
+            DeliveryAwareMessageProducer.of(delegate).send(message, onDelivered);
+        } catch (RuntimeException expected) {
+        }
+
+        verify(onDelivered, never()).run();
+    }
+
+    @Test
+    public void thatDeliveryAwareProducerIsUsedAsItIs() {
+        final BatchingMessageProducer batchingProducer = new BatchingMessageProducer(delegate, 10, 1000, 50,
+                mock(ScheduledExecutorService.class), new MetricRegistry());
+
+        assertThat(DeliveryAwareMessageProducer.of(batchingProducer), sameInstance((DeliveryAwareMessageProducer) batchingProducer));
+    }
+}
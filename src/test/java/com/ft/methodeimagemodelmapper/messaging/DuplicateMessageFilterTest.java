@@ -0,0 +1,113 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.MetricRegistry;
+import com.ft.message.consumer.MessageListener;
+import com.ft.messaging.standards.message.v1.Message;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DuplicateMessageFilterTest {
+
+    private static final String TX_ID = "tid_test";
+
+    @Mock
+    private MessageListener delegate;
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private DuplicateMessageFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = new DuplicateMessageFilter(delegate, 10, TimeUnit.MINUTES, 2, metrics);
+        when(delegate.onMessage(any(Message.class), anyString())).thenReturn(true);
+    }
+
+    @Test
+    public void thatRedeliveredMessageIsNotProcessedAgain() {
+        final Message message = message(UUID.randomUUID());
+
+        assertThat(filter.onMessage(message, TX_ID), is(true));
+        assertThat(filter.onMessage(message(message.getMessageId()), TX_ID), is(true));
+
+        verify(delegate, times(1)).onMessage(any(Message.class), anyString());
+        assertThat(metrics.meter(MetricRegistry.name(DuplicateMessageFilter.class, "duplicates")).getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void thatMessageFailingProcessingIsRetried() {
+        final Message message = message(UUID.randomUUID());
+        when(delegate.onMessage(message, TX_ID)).thenThrow(new IllegalStateException("unable to map")).thenReturn(true);
+
+        try {
+            filter.onMessage(message, TX_ID);
+        } catch (IllegalStateException expected) {
+        }
+        filter.onMessage(message, TX_ID);
+
+        verify(delegate, times(2)).onMessage(message, TX_ID);
+    }
+
+    @Test
+    public void thatMessagesWithoutIdAreAlwaysProcessed() {
+        filter.onMessage(message(null), TX_ID);
+        filter.onMessage(message(null), TX_ID);
+
+        verify(delegate, times(2)).onMessage(any(Message.class), anyString());
+    }
+
+    @Test
+    public void thatIdsBeyondTheBudgetAreForgottenAndReported() {
+        final Message first = message(UUID.randomUUID());
+        filter.onMessage(first, TX_ID);
+        filter.onMessage(message(UUID.randomUUID()), TX_ID);
+        filter.onMessage(message(UUID.randomUUID()), TX_ID);
+
+        filter.onMessage(first, TX_ID);
+
+        verify(delegate, times(4)).onMessage(any(Message.class), anyString());
+        assertThat(metrics.meter(MetricRegistry.name(DuplicateMessageFilter.class, "evicted")).getCount(), equalTo(2L));
+    }
+
+    @Test
+    public void thatAsyncMessageIsRememberedOnlyOnceProcessed() {
+        final AsyncMessageListener asyncDelegate = mock(AsyncMessageListener.class);
+        when(asyncDelegate.onMessage(any(Message.class), anyString(), any(Runnable.class))).thenReturn(true);
+        final DuplicateMessageFilter asyncFilter = new DuplicateMessageFilter(asyncDelegate, 10, TimeUnit.MINUTES, 2, new MetricRegistry());
+        final Message message = message(UUID.randomUUID());
+
+        asyncFilter.onMessage(message, TX_ID);
+        asyncFilter.onMessage(message(message.getMessageId()), TX_ID);
+        final ArgumentCaptor<Runnable> onProcessed = ArgumentCaptor.forClass(Runnable.class);
+        verify(asyncDelegate, times(2)).onMessage(any(Message.class), eq(TX_ID), onProcessed.capture());
+
+        onProcessed.getValue().run();
+        asyncFilter.onMessage(message(message.getMessageId()), TX_ID);
+
+        verify(asyncDelegate, times(2)).onMessage(any(Message.class), anyString(), any(Runnable.class));
+        verify(asyncDelegate, never()).onMessage(any(Message.class), anyString());
+    }
+
+    private static Message message(final UUID messageId) {
+        return new Message.Builder().withMessageId(messageId).withMessageBody("{}").build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class KeyOrderedExecutorTest {
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor("test", 4, 10, metrics);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.stop();
+    }
+
+    @Test
+    public void thatTasksForTheSameKeyRunInSubmissionOrder() throws InterruptedException {
+        final List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 100; i++) {
+            final int version = i;
+            executor.execute("same-uuid", () -> seen.add(version));
+        }
+        executor.stop();
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add(i);
+        }
+        assertThat(seen, equalTo(expected));
+    }
+
+    @Test
+    public void thatDifferentKeysRunInParallel() throws InterruptedException {
+        final String first = "a";
+        String second = "b";
+        while (executor.laneFor(second) == executor.laneFor(first)) {
+            second = second + "b";
+        }
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final Runnable waitForOther = () -> {
+            bothStarted.countDown();
+            try {
+                bothStarted.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        executor.execute(first, waitForOther);
+        executor.execute(second, waitForOther);
+
+        assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void thatQueueDepthAndImbalanceAreExported() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute("busy", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute("busy", () -> { });
+        executor.execute("busy", () -> { });
+
+        assertThat(gauge("queue-depth"), equalTo(2));
+        assertThat(gauge("lane-imbalance"), equalTo(2));
+        assertThat(metrics.meter(MetricRegistry.name(KeyOrderedExecutor.class, "test",
+                "lane-" + executor.laneFor("busy"), "submitted")).getCount(), equalTo(3L));
+        release.countDown();
+    }
+
+    @Test
+    public void thatLaneIsStableForAKey() {
+        assertThat(executor.laneFor("d7625378-d4cd-11e2-bce1-002128161462"),
+                equalTo(executor.laneFor("d7625378-d4cd-11e2-bce1-002128161462")));
+        assertThat(executor.laneFor("a"), not(equalTo(-1)));
+    }
+
+    private Integer gauge(final String name) {
+        final Gauge gauge = metrics.getGauges().get(MetricRegistry.name(KeyOrderedExecutor.class, "test", name));
+        return (Integer) gauge.getValue();
+    }
+}
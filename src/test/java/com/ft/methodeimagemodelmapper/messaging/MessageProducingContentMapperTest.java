@@ -1,8 +1,12 @@
 package com.ft.methodeimagemodelmapper.messaging;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.dropwizard.jackson.Jackson;
 import com.ft.content.model.Content;
+import com.ft.content.model.Copyright;
 import com.ft.messagequeueproducer.MessageProducer;
 import com.ft.messagequeueproducer.model.KeyedMessage;
 import com.ft.messaging.standards.message.v1.Message;
@@ -14,21 +18,31 @@ import com.ft.methodeimagemodelmapper.service.MethodeImageModelMapper;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import javax.ws.rs.core.UriBuilder;
+import java.net.URI;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static com.ft.api.util.transactionid.TransactionIdUtils.TRANSACTION_ID_HEADER;
 import static com.ft.messaging.standards.message.v1.MediaType.JSON;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -81,6 +95,243 @@ public class MessageProducingContentMapperTest {
         verifyMessage(actualMessage, uuid, lastModified, content);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void thatCreatedMessagesAreSentInOneCall() throws Exception {
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), producer, URI_BUILDER);
+
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        Date lastModified = new Date();
+        Content firstContent = new Content.Builder().withUuid(first).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(lastModified).build();
+        Content secondContent = new Content.Builder().withUuid(second).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(lastModified).build();
+
+        mapper.send(Arrays.asList(mapper.createMessage(firstContent), mapper.createMessage(secondContent)));
+
+        @SuppressWarnings("rawtypes")
+        ArgumentCaptor<List> listCaptor = ArgumentCaptor.forClass(List.class);
+        verify(producer).send(listCaptor.capture());
+
+        List<Message> messages = listCaptor.getValue();
+        assertThat(messages.size(), equalTo(2));
+        verifyMessage(messages.get(0), first, lastModified, firstContent);
+        verifyMessage(messages.get(1), second, lastModified, secondContent);
+    }
+
+    @Test
+    public void thatSerializeAndSendAreTimed() throws Exception {
+        MetricRegistry metrics = new MetricRegistry();
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), producer, URI_BUILDER,
+                null, metrics);
+        Content content = new Content.Builder().withUuid(UUID.randomUUID()).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date()).build();
+
+        mapper.send(Collections.singletonList(mapper.createMessage(content)));
+
+        assertThat(metrics.timer(MetricRegistry.name(MessageProducingContentMapper.class, "serialize")).getCount(), equalTo(1L));
+        assertThat(metrics.timer(MetricRegistry.name(MessageProducingContentMapper.class, "send")).getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void thatLagIsRecordedAfterSend() throws Exception {
+        PublishLagRecorder lagRecorder = mock(PublishLagRecorder.class);
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), producer, URI_BUILDER,
+                null, lagRecorder, new MetricRegistry());
+        Content content = new Content.Builder().withUuid(UUID.randomUUID()).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date()).build();
+        when(delegate.mapImageModel(any(EomFile.class), any(String.class), any(Date.class))).thenReturn(content);
+
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date());
+
+        InOrder inOrder = inOrder(producer, lagRecorder);
+        inOrder.verify(producer).send(anyListOf(Message.class));
+        inOrder.verify(lagRecorder).record(content);
+    }
+
+    @Test
+    public void thatLagIsRecordedOnlyOnceTheBatchIsSent() throws Exception {
+        PublishLagRecorder lagRecorder = mock(PublishLagRecorder.class);
+        BatchingMessageProducer batchingProducer = new BatchingMessageProducer(producer, 10, 1000000, 1000,
+                mock(ScheduledExecutorService.class), new MetricRegistry());
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), batchingProducer, URI_BUILDER,
+                null, lagRecorder, new MetricRegistry());
+        Content content = new Content.Builder().withUuid(UUID.randomUUID()).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date()).build();
+        Content failed = new Content.Builder().withUuid(UUID.randomUUID()).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date()).build();
+        when(delegate.mapImageModel(any(EomFile.class), any(String.class), any(Date.class))).thenReturn(content, failed);
+        doNothing().doThrow(new RuntimeException("kafka-proxy unavailable")).when(producer).send(anyListOf(Message.class));
+
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date());
+        verify(lagRecorder, never()).record(any(Content.class));
+        batchingProducer.flush();
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date());
+        batchingProducer.flush();
+
+        verify(lagRecorder).record(content);
+        verify(lagRecorder, never()).record(failed);
+    }
+
+    @Test
+    public void thatMessageBodyMatchesTheMapBasedEnvelope() throws Exception {
+        Date lastModified = new Date(1500000000123L);
+        Content content = new Content.Builder().withUuid(UUID.randomUUID()).withType("Graphic").withTitle("Caf\u00e9 \"quoted\"")
+                .withDescription("line\nbreak").withPixelWidth(2048).withPixelHeight(1152).withMediaType("image/png")
+                .withPublishedDate(lastModified).withPublishReference(PUBLISH_REF).withLastModified(lastModified)
+                .withCopyright(Copyright.noticeOnly("\u00a9 FT")).withExternalBinaryUrl("http://example.org/image.png").build();
+
+        for (ObjectMapper objectMapper : Arrays.asList(JACKSON_MAPPER, Jackson.newObjectMapper())) {
+            mapper = new MessageProducingContentMapper(delegate, objectMapper, SYSTEM_ID.toString(), producer, URI_BUILDER);
+
+            assertThat(mapper.createMessage(content).getMessageBody(), equalTo(mapBasedBody(objectMapper, content)));
+        }
+    }
+
+    private static String mapBasedBody(ObjectMapper objectMapper, Content content) throws Exception {
+        Map<String, Object> messageBody = new LinkedHashMap<>();
+        URI contentUri = URI_BUILDER.build(content.getUuid());
+        messageBody.put("contentUri", contentUri.toString());
+        messageBody.put("uuid", content.getUuid());
+        messageBody.put("relativeUrl", UriBuilder.fromPath(contentUri.getPath()).replaceQuery(contentUri.getQuery()).build());
+        messageBody.put("destination", "methode-image-model-transformer");
+        messageBody.put("payload", content);
+        messageBody.put("lastModified", DateTimeFormatter.ISO_OFFSET_DATE_TIME
+                .format(OffsetDateTime.ofInstant(content.getLastModified().toInstant(), ZoneOffset.UTC)));
+        return objectMapper.writeValueAsString(messageBody);
+    }
+
+    @Test
+    public void thatRepublishingUnchangedContentIsSuppressed() throws Exception {
+        ContentDeduplicator deduplicator = new ContentDeduplicator(JACKSON_MAPPER, 100, false, new MetricRegistry());
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), producer, URI_BUILDER, deduplicator);
+
+        UUID uuid = UUID.randomUUID();
+        Content first = new Content.Builder().withUuid(uuid).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date(1000)).build();
+        Content republished = new Content.Builder().withUuid(uuid).withTitle(TITLE)
+                .withPublishReference("junit67890").withLastModified(new Date(2000)).build();
+        when(delegate.mapImageModel(any(EomFile.class), any(String.class), any(Date.class))).thenReturn(first, republished);
+
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(1000));
+        Content actual = mapper.mapImageModel(incoming, "junit67890", new Date(2000));
+
+        assertThat(actual, equalTo(republished));
+        verify(producer, times(1)).send(anyListOf(Message.class));
+    }
+
+    @Test
+    public void thatContentSentInABatchIsNotSuppressedAfterwards() throws Exception {
+        ContentDeduplicator deduplicator = new ContentDeduplicator(JACKSON_MAPPER, 100, false, new MetricRegistry());
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), producer, URI_BUILDER, deduplicator);
+
+        UUID uuid = UUID.randomUUID();
+        Content versionA = new Content.Builder().withUuid(uuid).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date(1000)).build();
+        Content versionB = new Content.Builder().withUuid(uuid).withTitle("Other Title")
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date(2000)).build();
+        when(delegate.mapImageModel(any(EomFile.class), any(String.class), any(Date.class))).thenReturn(versionA);
+
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(1000));
+        mapper.send(Collections.singletonList(mapper.createMessage(versionB)));
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(3000));
+
+        verify(producer, times(3)).send(anyListOf(Message.class));
+    }
+
+    @Test
+    public void thatPublishingCompletesOnDeliveryOrWhenSuppressed() throws Exception {
+        ContentDeduplicator deduplicator = new ContentDeduplicator(JACKSON_MAPPER, 100, false, new MetricRegistry());
+        BatchingMessageProducer batchingProducer = new BatchingMessageProducer(producer, 10, 1000000, 1000,
+                mock(ScheduledExecutorService.class), new MetricRegistry());
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), batchingProducer, URI_BUILDER, deduplicator);
+        Content content = new Content.Builder().withUuid(UUID.randomUUID()).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date(1000)).build();
+        when(delegate.mapImageModel(any(EomFile.class), any(String.class), any(Date.class))).thenReturn(content);
+        Runnable delivered = mock(Runnable.class);
+        Runnable suppressed = mock(Runnable.class);
+
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(1000), delivered);
+        verify(delivered, never()).run();
+        batchingProducer.flush();
+        verify(delivered).run();
+
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(1000), suppressed);
+        verify(suppressed).run();
+    }
+
+    @Test
+    public void thatContentInAFailedBatchIsPublishedAgain() throws Exception {
+        ContentDeduplicator deduplicator = new ContentDeduplicator(JACKSON_MAPPER, 100, false, new MetricRegistry());
+        BatchingMessageProducer batchingProducer = new BatchingMessageProducer(producer, 10, 1000000, 1000,
+                mock(ScheduledExecutorService.class), new MetricRegistry());
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), batchingProducer, URI_BUILDER, deduplicator);
+
+        UUID uuid = UUID.randomUUID();
+        Content content = new Content.Builder().withUuid(uuid).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date(1000)).build();
+        when(delegate.mapImageModel(any(EomFile.class), any(String.class), any(Date.class))).thenReturn(content);
+        doThrow(new RuntimeException("kafka-proxy unavailable")).doNothing().doNothing().when(producer).send(anyListOf(Message.class));
+
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(1000));
+        batchingProducer.flush();
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(1000));
+        batchingProducer.flush();
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(1000));
+        batchingProducer.flush();
+
+        verify(producer, times(2)).send(anyListOf(Message.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void thatRevertingToTheDeliveredVersionBeforeAFlushIsPublished() throws Exception {
+        ContentDeduplicator deduplicator = new ContentDeduplicator(JACKSON_MAPPER, 100, false, new MetricRegistry());
+        BatchingMessageProducer batchingProducer = new BatchingMessageProducer(producer, 10, 1000000, 1000,
+                mock(ScheduledExecutorService.class), new MetricRegistry());
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), batchingProducer, URI_BUILDER, deduplicator);
+
+        UUID uuid = UUID.randomUUID();
+        Content versionX = new Content.Builder().withUuid(uuid).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date(1000)).build();
+        Content versionY = new Content.Builder().withUuid(uuid).withTitle("Other Title")
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date(2000)).build();
+        when(delegate.mapImageModel(any(EomFile.class), any(String.class), any(Date.class))).thenReturn(versionX, versionY, versionX);
+
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(1000));
+        batchingProducer.flush();
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(2000));
+        mapper.mapImageModel(incoming, PUBLISH_REF, new Date(3000));
+        batchingProducer.flush();
+
+        ArgumentCaptor<List> batches = ArgumentCaptor.forClass(List.class);
+        verify(producer, times(2)).send(batches.capture());
+        List<Message> lastBatch = batches.getAllValues().get(1);
+        assertThat(lastBatch.size(), equalTo(2));
+        Map payload = (Map) JACKSON_MAPPER.readValue(lastBatch.get(1).getMessageBody(), Map.class).get("payload");
+        assertThat(payload.get("title"), equalTo(TITLE));
+    }
+
+    @Test
+    public void thatPreparedSendPublishesOnlyWhenRun() throws Exception {
+        ContentDeduplicator deduplicator = new ContentDeduplicator(JACKSON_MAPPER, 100, false, new MetricRegistry());
+        mapper = new MessageProducingContentMapper(delegate, JACKSON_MAPPER, SYSTEM_ID.toString(), producer, URI_BUILDER, deduplicator);
+        Content content = new Content.Builder().withUuid(UUID.randomUUID()).withTitle(TITLE)
+                .withPublishReference(PUBLISH_REF).withLastModified(new Date(1000)).build();
+        Runnable delivered = mock(Runnable.class);
+        Runnable suppressed = mock(Runnable.class);
+
+        Runnable send = mapper.prepareSend(content, delivered);
+        verify(producer, never()).send(anyListOf(Message.class));
+        send.run();
+        verify(producer).send(anyListOf(Message.class));
+        verify(delivered).run();
+
+        assertThat(mapper.prepareSend(content, suppressed), nullValue());
+        verify(suppressed).run();
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     private void verifyMessage(Message actualMessage, UUID expectedUuid, Date expectedLastModified, Content expectedContent)
             throws Exception {
@@ -110,6 +361,8 @@ public class MessageProducingContentMapperTest {
             throws Exception {
 
         ObjectMapper failing = mock(ObjectMapper.class);
+        ObjectWriter failingWriter = mock(ObjectWriter.class);
+        when(failing.writerWithType(any(Class.class))).thenReturn(failingWriter);
         mapper = new MessageProducingContentMapper(delegate, failing, SYSTEM_ID.toString(), producer, URI_BUILDER);
 
         UUID uuid = UUID.randomUUID();
@@ -123,7 +376,7 @@ public class MessageProducingContentMapperTest {
 
         when(delegate.mapImageModel(any(EomFile.class), eq(PUBLISH_REF), eq(lastModified))).thenReturn(content);
 
-        when(failing.writeValueAsString(any())).thenThrow(new JsonGenerationException("test exception"));
+        when(failingWriter.writeValueAsString(any())).thenThrow(new JsonGenerationException("test exception"));
 
         try {
             mapper.mapImageModel(incoming, PUBLISH_REF, lastModified);
@@ -1,10 +1,13 @@
 package com.ft.methodeimagemodelmapper.messaging;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.ft.messaging.standards.message.v1.Message;
 import com.ft.messaging.standards.message.v1.SystemId;
 import com.ft.methodeimagemodelmapper.exception.IngesterException;
+import com.ft.methodeimagemodelmapper.exception.MethodeContentNotSupportedException;
+import com.ft.methodeimagemodelmapper.exception.TransformationException;
 import com.ft.methodeimagemodelmapper.model.EomFile;
 import com.ft.methodeimagemodelmapper.validation.PublishingValidator;
 import org.junit.Before;
@@ -20,6 +23,7 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Date;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
@@ -35,6 +39,8 @@ public class NativeCmsPublicationEventsListenerTest {
     private static final ObjectMapper JACKSON_MAPPER = new ObjectMapper();
     private static final String UUID = "d7625378-d4cd-11e2-bce1-002128161462";
 
+    private final MetricRegistry metrics = new MetricRegistry();
+
     private NativeCmsPublicationEventsListener listener;
 
     private NativeCmsPublicationEventsListener errorListener;
@@ -53,11 +59,11 @@ public class NativeCmsPublicationEventsListenerTest {
 
     @Before
     public void setUp() throws IOException {
-        listener = new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, JACKSON_MAPPER, publishingValidator);
+        listener = new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, JACKSON_MAPPER, publishingValidator, metrics);
 
         when(objectMapper.reader(EomFile.class)).thenReturn(objectReader);
         when(objectReader.readValue(anyString())).thenThrow(IOException.class);
-        errorListener = new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, objectMapper, publishingValidator);
+        errorListener = new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, objectMapper, publishingValidator, metrics);
     }
 
     @Test
@@ -74,7 +80,7 @@ public class NativeCmsPublicationEventsListenerTest {
 
         ArgumentCaptor<EomFile> c = ArgumentCaptor.forClass(EomFile.class);
 
-        verify(mapper, times(1)).mapImageModel(c.capture(), eq(TX_ID), eq(message.getMessageTimestamp()));
+        verify(mapper, times(1)).mapImageModel(c.capture(), eq(TX_ID), eq(message.getMessageTimestamp()), any(Runnable.class));
 
         EomFile actual = c.getValue();
         assertThat(actual, notNullValue());
@@ -115,6 +121,178 @@ public class NativeCmsPublicationEventsListenerTest {
         errorListener.onMessage(message, TX_ID);
     }
 
+    @Test
+    public void thatMappingIsHandedToWorkerLaneOfTheContentUuid() throws Exception {
+        KeyOrderedExecutor workers = mock(KeyOrderedExecutor.class);
+        NativeCmsPublicationEventsListener workerListener =
+                new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, JACKSON_MAPPER, publishingValidator, workers, new MetricRegistry());
+        Message message = new Message();
+        message.setOriginSystemId(SystemId.systemIdFromCode(SYSTEM_CODE));
+        message.setMessageTimestamp(new Date());
+        message.setMessageBody(JACKSON_MAPPER.writeValueAsString(createSampleMethodeImage()));
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(true);
+
+        assertThat(workerListener.onMessage(message, TX_ID), is(true));
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(workers).execute(eq(UUID), task.capture());
+        verifyZeroInteractions(mapper);
+
+        task.getValue().run();
+        verify(mapper).mapImageModel(any(EomFile.class), eq(TX_ID), eq(message.getMessageTimestamp()), any(Runnable.class));
+    }
+
+    @Test
+    public void thatValidContentIsSubmittedToPipeline() throws Exception {
+        PublishingPipeline pipeline = mock(PublishingPipeline.class);
+        NativeCmsPublicationEventsListener pipelineListener =
+                new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, JACKSON_MAPPER, publishingValidator, pipeline, new MetricRegistry());
+        Message message = new Message();
+        message.setOriginSystemId(SystemId.systemIdFromCode(SYSTEM_CODE));
+        message.setMessageTimestamp(new Date());
+        message.setMessageBody(JACKSON_MAPPER.writeValueAsString(createSampleMethodeImage()));
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(true);
+
+        assertThat(pipelineListener.onMessage(message, TX_ID), is(true));
+
+        ArgumentCaptor<EomFile> c = ArgumentCaptor.forClass(EomFile.class);
+        verify(pipeline).submit(c.capture(), eq(TX_ID), eq(message.getMessageTimestamp()), any(Runnable.class), any(Consumer.class));
+        assertThat(c.getValue().getUuid(), equalTo(UUID));
+        verifyZeroInteractions(mapper);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void thatPipelineFailureIsCountedByReason() throws Exception {
+        PublishingPipeline pipeline = mock(PublishingPipeline.class);
+        NativeCmsPublicationEventsListener pipelineListener =
+                new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, JACKSON_MAPPER, publishingValidator, pipeline, metrics);
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(true);
+
+        pipelineListener.onMessage(createSampleMessage(), TX_ID);
+        ArgumentCaptor<Consumer> onFailure = ArgumentCaptor.forClass(Consumer.class);
+        verify(pipeline).submit(any(EomFile.class), eq(TX_ID), any(Date.class), any(Runnable.class), onFailure.capture());
+        onFailure.getValue().accept(new TransformationException(new IllegalArgumentException("no width")));
+
+        assertThat(count("failed", "transformation"), equalTo(1L));
+        assertThat(pipelineListener.getAsyncFailures().getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void thatSkippedMessagesAreCountedByReason() throws Exception {
+        Message foreign = new Message();
+        foreign.setOriginSystemId(SystemId.systemIdFromCode("foo"));
+        listener.onMessage(foreign, TX_ID);
+
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(false);
+        listener.onMessage(createSampleMessage(), TX_ID);
+
+        assertThat(count("skipped", "other-system"), equalTo(1L));
+        assertThat(count("skipped", "not-publishable"), equalTo(1L));
+        assertThat(metrics.timer(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "deserialize")).getCount(), equalTo(1L));
+        assertThat(metrics.timer(MetricRegistry.name(NativeCmsPublicationEventsListener.class, "validate")).getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void thatSkippedMessagesAreProcessedStraightAway() throws Exception {
+        Runnable onProcessed = mock(Runnable.class);
+        Message foreign = new Message();
+        foreign.setOriginSystemId(SystemId.systemIdFromCode("foo"));
+        listener.onMessage(foreign, TX_ID, onProcessed);
+
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(false);
+        listener.onMessage(createSampleMessage(), TX_ID, onProcessed);
+
+        verify(onProcessed, times(2)).run();
+    }
+
+    @Test
+    public void thatWorkerHandsCompletionToTheMapper() throws Exception {
+        KeyOrderedExecutor workers = mock(KeyOrderedExecutor.class);
+        NativeCmsPublicationEventsListener workerListener =
+                new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, JACKSON_MAPPER, publishingValidator, workers, metrics);
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(true);
+        Runnable onProcessed = mock(Runnable.class);
+
+        workerListener.onMessage(createSampleMessage(), TX_ID, onProcessed);
+        verify(mapper, never()).mapImageModel(any(EomFile.class), anyString(), any(Date.class), any(Runnable.class));
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(workers).execute(eq(UUID), task.capture());
+        task.getValue().run();
+
+        verify(mapper).mapImageModel(any(EomFile.class), eq(TX_ID), any(Date.class), eq(onProcessed));
+        verify(onProcessed, never()).run();
+    }
+
+    @Test
+    public void thatUnparseableMessageIsCounted() throws Exception {
+        try {
+            errorListener.onMessage(createSampleMessage(), TX_ID);
+        } catch (IngesterException expected) {
+        }
+        assertThat(count("failed", "unparseable"), equalTo(1L));
+    }
+
+    @Test
+    public void thatMappingFailureIsCountedAndRethrown() throws Exception {
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(true);
+        when(mapper.mapImageModel(any(EomFile.class), anyString(), any(Date.class), any(Runnable.class)))
+                .thenThrow(new MethodeContentNotSupportedException("not an image"));
+        try {
+            listener.onMessage(createSampleMessage(), TX_ID);
+        } catch (MethodeContentNotSupportedException expected) {
+        }
+        assertThat(count("skipped", "unsupported"), equalTo(1L));
+    }
+
+    @Test
+    public void thatWorkerMappingFailureIsCounted() throws Exception {
+        KeyOrderedExecutor workers = mock(KeyOrderedExecutor.class);
+        NativeCmsPublicationEventsListener workerListener =
+                new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, JACKSON_MAPPER, publishingValidator, workers, metrics);
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(true);
+        when(mapper.mapImageModel(any(EomFile.class), anyString(), any(Date.class), any(Runnable.class)))
+                .thenThrow(new IllegalStateException("kafka-proxy unavailable"));
+
+        workerListener.onMessage(createSampleMessage(), TX_ID);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(workers).execute(eq(UUID), task.capture());
+        task.getValue().run();
+
+        assertThat(count("failed", "other"), equalTo(1L));
+        assertThat(workerListener.getAsyncFailures().getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void thatUnsupportedContentInWorkerIsNotAnAsyncFailure() throws Exception {
+        KeyOrderedExecutor workers = mock(KeyOrderedExecutor.class);
+        NativeCmsPublicationEventsListener workerListener =
+                new NativeCmsPublicationEventsListener(SYSTEM_CODE, mapper, JACKSON_MAPPER, publishingValidator, workers, metrics);
+        when(publishingValidator.isValidForPublishing(any(EomFile.class))).thenReturn(true);
+        when(mapper.mapImageModel(any(EomFile.class), anyString(), any(Date.class), any(Runnable.class)))
+                .thenThrow(new MethodeContentNotSupportedException("not an image"));
+
+        workerListener.onMessage(createSampleMessage(), TX_ID);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(workers).execute(eq(UUID), task.capture());
+        task.getValue().run();
+
+        assertThat(count("skipped", "unsupported"), equalTo(1L));
+        assertThat(workerListener.getAsyncFailures().getCount(), equalTo(0L));
+    }
+
+    private long count(String... names) {
+        return metrics.counter(MetricRegistry.name(NativeCmsPublicationEventsListener.class, names)).getCount();
+    }
+
+    private Message createSampleMessage() throws Exception {
+        Message message = new Message();
+        message.setOriginSystemId(SystemId.systemIdFromCode(SYSTEM_CODE));
+        message.setMessageTimestamp(new Date());
+        message.setMessageBody(JACKSON_MAPPER.writeValueAsString(createSampleMethodeImage()));
+        return message;
+    }
+
     private EomFile createSampleMethodeImage() throws Exception {
         final String attributes = loadFile("sample-attributes.xml");
         final String systemAttributes = loadFile("sample-system-attributes.xml");
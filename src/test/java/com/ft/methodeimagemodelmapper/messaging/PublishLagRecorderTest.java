@@ -0,0 +1,84 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.ft.content.model.Content;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class PublishLagRecorderTest {
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final ManualClock clock = new ManualClock();
+    private PublishLagRecorder recorder;
+
+    @Before
+    public void setUp() {
+        clock.now = TimeUnit.HOURS.toMillis(1);
+        recorder = new PublishLagRecorder(metrics, clock);
+    }
+
+    @Test
+    public void thatLagIsRecordedByTypeAndMediaType() {
+        recorder.record(content("Image", "image/jpeg", clock.now - 250));
+        recorder.record(content("Graphic", "image/png", clock.now - 1000));
+
+        assertThat(lag("Image", "image-jpeg").getSnapshot().getMax(), equalTo(250L));
+        assertThat(lag("Graphic", "image-png").getSnapshot().getMax(), equalTo(1000L));
+    }
+
+    @Test
+    public void thatMaxLagCoversOnlyTheLastMinute() {
+        recorder.record(content("Image", "image/jpeg", clock.now - 5000));
+        recorder.record(content("Image", "image/jpeg", clock.now - 200));
+        assertThat(maxLag(), equalTo(5000L));
+
+        clock.now += TimeUnit.SECONDS.toMillis(90);
+        recorder.record(content("Image", "image/jpeg", clock.now - 300));
+
+        assertThat(maxLag(), equalTo(300L));
+    }
+
+    @Test
+    public void thatContentWithoutLastModifiedIsIgnored() {
+        recorder.record(new Content.Builder().withUuid(UUID.randomUUID()).withType("Image").build());
+
+        assertThat(maxLag(), equalTo(0L));
+        assertThat(metrics.getHistograms().isEmpty(), equalTo(true));
+    }
+
+    private Histogram lag(String type, String mediaType) {
+        return metrics.histogram(MetricRegistry.name(PublishLagRecorder.class, "lag", type, mediaType));
+    }
+
+    private long maxLag() {
+        return (Long) metrics.getGauges().get(MetricRegistry.name(PublishLagRecorder.class, "max-lag")).getValue();
+    }
+
+    private static Content content(String type, String mediaType, long lastModified) {
+        return new Content.Builder().withUuid(UUID.randomUUID()).withType(type).withMediaType(mediaType)
+                .withLastModified(new Date(lastModified)).build();
+    }
+
+    private static class ManualClock extends Clock {
+        private long now;
+
+        @Override
+        public long getTick() {
+            return TimeUnit.MILLISECONDS.toNanos(now);
+        }
+
+        @Override
+        public long getTime() {
+            return now;
+        }
+    }
+}
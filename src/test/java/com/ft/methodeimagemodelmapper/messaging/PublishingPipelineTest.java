@@ -0,0 +1,142 @@
+package com.ft.methodeimagemodelmapper.messaging;
+
+import com.codahale.metrics.MetricRegistry;
+import com.ft.content.model.Content;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.service.MethodeImageModelMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PublishingPipelineTest {
+
+    private static final String UUID = "d7625378-d4cd-11e2-bce1-002128161462";
+    private static final String TX_ID = "tid_test";
+
+    @Mock
+    private MethodeImageModelMapper imageModelMapper;
+    @Mock
+    private MessageProducingContentMapper messageProducingContentMapper;
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final KeyOrderedExecutor mapStage = new KeyOrderedExecutor("map", 2, 10, metrics);
+    private final KeyOrderedExecutor serializeStage = new KeyOrderedExecutor("serialize", 2, 10, metrics);
+    private final KeyOrderedExecutor sendStage = new KeyOrderedExecutor("send", 2, 10, metrics);
+    private PublishingPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        pipeline = new PublishingPipeline(imageModelMapper, messageProducingContentMapper, mapStage, serializeStage, sendStage, metrics);
+    }
+
+    @Test
+    public void thatContentIsMappedSerializedAndSent() throws InterruptedException {
+        final EomFile eomFile = eomFile();
+        final Date lastModified = new Date();
+        final Content content = Content.builder().withUuid(java.util.UUID.fromString(UUID)).build();
+        final Runnable send = mock(Runnable.class);
+        when(imageModelMapper.mapImageModel(eomFile, TX_ID, lastModified)).thenReturn(content);
+        when(messageProducingContentMapper.prepareSend(eq(content), any(Runnable.class))).thenReturn(send);
+
+        pipeline.submit(eomFile, TX_ID, lastModified);
+        drain();
+
+        verify(send).run();
+        assertThat(serviceTimeCount("map"), equalTo(1L));
+        assertThat(serviceTimeCount("serialize"), equalTo(1L));
+        assertThat(serviceTimeCount("send"), equalTo(1L));
+    }
+
+    @Test
+    public void thatVersionsOfTheSameContentAreSentInOrder() throws InterruptedException {
+        final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        when(imageModelMapper.mapImageModel(any(EomFile.class), anyString(), any(Date.class)))
+                .thenAnswer(invocation -> Content.builder().withTitle(((Date) invocation.getArguments()[2]).getTime() + "").build());
+        when(messageProducingContentMapper.prepareSend(any(Content.class), any(Runnable.class))).thenAnswer(invocation -> {
+            final String title = ((Content) invocation.getArguments()[0]).getTitle();
+            return (Runnable) () -> sent.add(title);
+        });
+
+        final List<String> expected = new ArrayList<>();
+        for (int version = 0; version < 50; version++) {
+            pipeline.submit(eomFile(), TX_ID, new Date(version));
+            expected.add(Integer.toString(version));
+        }
+        drain();
+
+        assertThat(sent, equalTo(expected));
+    }
+
+    @Test
+    public void thatMappingFailureIsCountedAndNothingIsSent() throws InterruptedException {
+        when(imageModelMapper.mapImageModel(any(EomFile.class), anyString(), any(Date.class)))
+                .thenThrow(new IllegalStateException("unmappable"));
+
+        pipeline.submit(eomFile(), TX_ID, new Date());
+        drain();
+
+        verify(messageProducingContentMapper, never()).prepareSend(any(Content.class), any(Runnable.class));
+        assertThat(metrics.meter(MetricRegistry.name(PublishingPipeline.class, "map", "failures")).getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void thatSendFailureIsHandedToTheFailureHandler() throws InterruptedException {
+        final IllegalStateException failure = new IllegalStateException("kafka-proxy unavailable");
+        final List<RuntimeException> failures = Collections.synchronizedList(new ArrayList<>());
+        when(imageModelMapper.mapImageModel(any(EomFile.class), anyString(), any(Date.class))).thenReturn(Content.builder().build());
+        when(messageProducingContentMapper.prepareSend(any(Content.class), any(Runnable.class))).thenReturn(() -> {
+            throw failure;
+        });
+
+        pipeline.submit(eomFile(), TX_ID, new Date(), () -> {
+        }, failures::add);
+        drain();
+
+        assertThat(failures, equalTo(Collections.<RuntimeException>singletonList(failure)));
+        assertThat(metrics.meter(MetricRegistry.name(PublishingPipeline.class, "send", "failures")).getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void thatUnchangedContentIsNotHandedToTheSendStage() throws InterruptedException {
+        when(imageModelMapper.mapImageModel(any(EomFile.class), anyString(), any(Date.class))).thenReturn(Content.builder().build());
+        when(messageProducingContentMapper.prepareSend(any(Content.class), any(Runnable.class))).thenReturn(null);
+
+        pipeline.submit(eomFile(), TX_ID, new Date());
+        drain();
+
+        assertThat(serviceTimeCount("serialize"), equalTo(1L));
+        assertThat(serviceTimeCount("send"), equalTo(0L));
+    }
+
+    private void drain() throws InterruptedException {
+        mapStage.stop();
+        serializeStage.stop();
+        sendStage.stop();
+    }
+
+    private long serviceTimeCount(final String stage) {
+        return metrics.timer(MetricRegistry.name(PublishingPipeline.class, stage, "service-time")).getCount();
+    }
+
+    private static EomFile eomFile() {
+        return new EomFile.Builder().withUuid(UUID).withType("Image").build();
+    }
+}
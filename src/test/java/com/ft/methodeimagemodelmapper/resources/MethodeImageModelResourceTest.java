@@ -1,18 +1,24 @@
 package com.ft.methodeimagemodelmapper.resources;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.ft.api.jaxrs.errors.ErrorEntity;
 import com.ft.api.jaxrs.errors.WebApplicationClientException;
 import com.ft.api.jaxrs.errors.WebApplicationServerException;
 import com.ft.content.model.Content;
 import com.ft.messagequeueproducer.MessageProducer;
+import com.ft.methodeimagemodelmapper.configuration.BatchConfiguration;
 import com.ft.methodeimagemodelmapper.exception.MethodeContentNotSupportedException;
 import com.ft.methodeimagemodelmapper.exception.TransformationException;
+import com.ft.methodeimagemodelmapper.messaging.ContentDeduplicator;
 import com.ft.methodeimagemodelmapper.messaging.MessageProducingContentMapper;
+import com.ft.methodeimagemodelmapper.model.BatchItemResult;
 import com.ft.methodeimagemodelmapper.model.EomFile;
 import com.ft.methodeimagemodelmapper.service.MethodeImageModelMapper;
 import com.ft.methodeimagemodelmapper.validation.PublishingValidator;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
@@ -21,17 +27,26 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.ft.api.util.transactionid.TransactionIdUtils.TRANSACTION_ID_HEADER;
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -39,6 +54,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -68,6 +85,9 @@ public class MethodeImageModelResourceTest {
     @Mock
     private ObjectMapper mockObjectMapper;
 
+    @Mock
+    private ObjectWriter mockObjectWriter;
+
     @Rule
     public ExpectedException exception = ExpectedException.none();
 
@@ -162,6 +182,25 @@ public class MethodeImageModelResourceTest {
         verify(producer).send(anyList());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void importContentShouldPublishUnchangedContentAgain() {
+        final ContentDeduplicator deduplicator = new ContentDeduplicator(new ObjectMapper(), 10, false, new MetricRegistry());
+        contentMapper = new MessageProducingContentMapper(imageModelMapper, new ObjectMapper(), SYSTEM_ID,
+                producer, URI_BUILDER, deduplicator);
+        resource = new MethodeImageModelResource(imageModelMapper, contentMapper, new PublishingValidator());
+        final Content expectedContent = Content.builder().withUuid(java.util.UUID.fromString(UUID))
+                .withPublishReference(TRANSACTION_ID).withLastModified(LAST_MODIFIED_DATE).build();
+        when(imageModelMapper.mapImageModel(eq(file), eq(TRANSACTION_ID), any(Date.class)))
+                .thenReturn(expectedContent);
+
+        contentMapper.mapImageModel(file, TRANSACTION_ID, LAST_MODIFIED_DATE);
+        resource.ingestImageModel(file, headers);
+        contentMapper.mapImageModel(file, TRANSACTION_ID, LAST_MODIFIED_DATE);
+
+        verify(producer, times(3)).send(anyList());
+    }
+
     @Test
     public void importContentShouldReturn422ForContentWithInvalidUuid() {
         exception.expect(WebApplicationClientException.class);
@@ -223,7 +262,7 @@ public class MethodeImageModelResourceTest {
         when(imageModelMapper.mapImageModel(eq(file), eq(TRANSACTION_ID), any(Date.class)))
                 .thenReturn(expectedContent);
 
-        when(mockObjectMapper.writeValueAsString(any())).thenThrow(JsonProcessingException.class);
+        failJsonWrites();
 
         contentMapper = new MessageProducingContentMapper(imageModelMapper, mockObjectMapper, SYSTEM_ID,
                 producer, URI_BUILDER);
@@ -233,6 +272,186 @@ public class MethodeImageModelResourceTest {
         resource.ingestImageModel(file, headers);
     }
 
+    @Test
+    public void mapBatchShouldReturnOneResultPerItemInOrder() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            resource = new MethodeImageModelResource(imageModelMapper, contentMapper, new PublishingValidator(),
+                    new ObjectMapper(), executor, new BatchConfiguration(4, null));
+            final List<EomFile> files = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                files.add(new EomFile(java.util.UUID.randomUUID().toString(), "Image", new byte[]{(byte) i}, "attributes",
+                        "workflow", "sysattributes", "usageTickets", LAST_MODIFIED_DATE));
+            }
+            when(imageModelMapper.mapImageModel(any(EomFile.class), eq(TRANSACTION_ID), any(Date.class))).thenAnswer(invocation -> {
+                final EomFile eomFile = (EomFile) invocation.getArguments()[0];
+                Thread.sleep(20 - eomFile.getValue()[0]);
+                return contentFor(eomFile);
+            });
+
+            final List<BatchItemResult> results = mapBatch(new ObjectMapper().writeValueAsString(files));
+
+            assertThat(results.size(), equalTo(20));
+            for (int i = 0; i < 20; i++) {
+                assertThat(results.get(i).getIndex(), equalTo(i));
+                assertThat(results.get(i).getStatus(), equalTo(200));
+                assertThat(results.get(i).getContent().getUuid(), equalTo(files.get(i).getUuid()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void mapBatchShouldReportFailuresPerItem() throws Exception {
+        final EomFile invalidUuid = new EomFile("someInvalidUuid", "Image", null, "attributes", "workflow",
+                "sysattributes", "usageTickets", LAST_MODIFIED_DATE);
+        when(imageModelMapper.mapImageModel(any(EomFile.class), eq(TRANSACTION_ID), any(Date.class)))
+                .thenAnswer(invocation -> contentFor((EomFile) invocation.getArguments()[0]));
+        final ObjectMapper objectMapper = new ObjectMapper();
+
+        final List<BatchItemResult> results = mapBatch(objectMapper.writeValueAsString(invalidUuid) + "\n"
+                + objectMapper.writeValueAsString(file) + "\n");
+
+        assertThat(results.size(), equalTo(2));
+        assertThat(results.get(0).getStatus(), equalTo(422));
+        assertThat(results.get(0).getMessage(), equalTo(INVALID_UUID));
+        assertThat(results.get(0).getUuid(), equalTo("someInvalidUuid"));
+        assertThat(results.get(1).getStatus(), equalTo(200));
+        assertThat(results.get(1).getContent().getUuid(), equalTo(UUID));
+    }
+
+    @Test
+    public void mapBatchShouldReportUnsupportedContentPerItem() throws Exception {
+        when(imageModelMapper.mapImageModel(any(EomFile.class), eq(TRANSACTION_ID), any(Date.class)))
+                .thenThrow(new MethodeContentNotSupportedException(""));
+
+        final List<BatchItemResult> results = mapBatch(new ObjectMapper().writeValueAsString(Collections.singletonList(file)));
+
+        assertThat(results.size(), equalTo(1));
+        assertThat(results.get(0).getStatus(), equalTo(422));
+        assertThat(results.get(0).getMessage(), equalTo(CONTENT_TYPE_NOT_SUPPORTED));
+    }
+
+    @Test
+    public void mapBatchShouldAnswerItemsBeforeMalformedInput() throws Exception {
+        when(imageModelMapper.mapImageModel(any(EomFile.class), eq(TRANSACTION_ID), any(Date.class)))
+                .thenAnswer(invocation -> contentFor((EomFile) invocation.getArguments()[0]));
+
+        final List<BatchItemResult> results = mapBatch(new ObjectMapper().writeValueAsString(file) + "\n{\"uuid\": ");
+
+        assertThat(results.size(), equalTo(2));
+        assertThat(results.get(0).getStatus(), equalTo(200));
+        assertThat(results.get(1).getIndex(), equalTo(1));
+        assertThat(results.get(1).getStatus(), equalTo(400));
+    }
+
+    @Test
+    public void mapBatchShouldFireIllegalStateExceptionIfNoTransactionHeaderSupplied() {
+        when(headers.getRequestHeader(TRANSACTION_ID_HEADER)).thenReturn(new LinkedList<>());
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("Transaction ID not found.");
+
+        resource.mapImageModels(new ByteArrayInputStream(new byte[0]), headers);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void ingestBatchShouldPublishInGroupsAndReportEachItem() throws Exception {
+        resource = new MethodeImageModelResource(imageModelMapper, contentMapper, new PublishingValidator(),
+                new ObjectMapper(), MoreExecutors.sameThreadExecutor(), new BatchConfiguration(1, 2));
+        when(imageModelMapper.mapImageModel(any(EomFile.class), eq(TRANSACTION_ID), any(Date.class)))
+                .thenAnswer(invocation -> contentFor((EomFile) invocation.getArguments()[0]));
+        final List<EomFile> files = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            files.add(new EomFile(java.util.UUID.randomUUID().toString(), "Image", new byte[]{1}, "attributes", "workflow",
+                    "sysattributes", "usageTickets", LAST_MODIFIED_DATE));
+        }
+        files.add(2, new EomFile("someInvalidUuid", "Image", null, "attributes", "workflow",
+                "sysattributes", "usageTickets", LAST_MODIFIED_DATE));
+
+        final List<BatchItemResult> results = ingestBatch(new ObjectMapper().writeValueAsString(files));
+
+        final ArgumentCaptor<List> sent = ArgumentCaptor.forClass(List.class);
+        verify(producer, times(3)).send(sent.capture());
+        assertThat(sent.getAllValues().get(0).size(), equalTo(2));
+        assertThat(sent.getAllValues().get(1).size(), equalTo(2));
+        assertThat(sent.getAllValues().get(2).size(), equalTo(1));
+        assertThat(results.size(), equalTo(6));
+        for (int i = 0; i < 6; i++) {
+            assertThat(results.get(i).getIndex(), equalTo(i));
+            assertThat(results.get(i).getUuid(), equalTo(files.get(i).getUuid()));
+            assertThat(results.get(i).getStatus(), equalTo(i == 2 ? 422 : 200));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void ingestBatchShouldReportFailedSendForItsItemsOnly() throws Exception {
+        resource = new MethodeImageModelResource(imageModelMapper, contentMapper, new PublishingValidator(),
+                new ObjectMapper(), MoreExecutors.sameThreadExecutor(), new BatchConfiguration(1, 2));
+        when(imageModelMapper.mapImageModel(any(EomFile.class), eq(TRANSACTION_ID), any(Date.class)))
+                .thenAnswer(invocation -> contentFor((EomFile) invocation.getArguments()[0]));
+        doThrow(new RuntimeException("proxy unavailable")).doNothing().when(producer).send(anyList());
+        final List<EomFile> files = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            files.add(new EomFile(java.util.UUID.randomUUID().toString(), "Image", new byte[]{1}, "attributes", "workflow",
+                    "sysattributes", "usageTickets", LAST_MODIFIED_DATE));
+        }
+
+        final List<BatchItemResult> results = ingestBatch(new ObjectMapper().writeValueAsString(files));
+
+        assertThat(results.size(), equalTo(3));
+        assertThat(results.get(0).getStatus(), equalTo(500));
+        assertThat(results.get(1).getStatus(), equalTo(500));
+        assertThat(results.get(2).getStatus(), equalTo(200));
+    }
+
+    @Test
+    public void ingestBatchShouldReport500IfMessageCannotBeWritten() throws Exception {
+        when(imageModelMapper.mapImageModel(any(EomFile.class), eq(TRANSACTION_ID), any(Date.class)))
+                .thenAnswer(invocation -> contentFor((EomFile) invocation.getArguments()[0]));
+        failJsonWrites();
+        contentMapper = new MessageProducingContentMapper(imageModelMapper, mockObjectMapper, SYSTEM_ID, producer, URI_BUILDER);
+        resource = new MethodeImageModelResource(imageModelMapper, contentMapper, new PublishingValidator());
+
+        final List<BatchItemResult> results = ingestBatch(new ObjectMapper().writeValueAsString(Collections.singletonList(file)));
+
+        assertThat(results.size(), equalTo(1));
+        assertThat(results.get(0).getStatus(), equalTo(500));
+        assertThat(results.get(0).getMessage(), equalTo(UNABLE_TO_WRITE_JSON_MESSAGE));
+        verifyZeroInteractions(producer);
+    }
+
+    private void failJsonWrites() throws JsonProcessingException {
+        when(mockObjectMapper.writerWithType(any(Class.class))).thenReturn(mockObjectWriter);
+        when(mockObjectWriter.writeValueAsString(any())).thenThrow(JsonProcessingException.class);
+    }
+
+    private Content contentFor(final EomFile eomFile) {
+        return Content.builder().withUuid(java.util.UUID.fromString(eomFile.getUuid())).withPublishReference(TRANSACTION_ID)
+                .withLastModified(LAST_MODIFIED_DATE).build();
+    }
+
+    private List<BatchItemResult> mapBatch(final String body) throws IOException {
+        return readResults(resource.mapImageModels(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), headers));
+    }
+
+    private List<BatchItemResult> ingestBatch(final String body) throws IOException {
+        return readResults(resource.ingestImageModels(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), headers));
+    }
+
+    private List<BatchItemResult> readResults(final StreamingOutput streamingOutput) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        streamingOutput.write(output);
+        final List<BatchItemResult> results = new ArrayList<>();
+        final ObjectMapper objectMapper = new ObjectMapper();
+        for (String line : new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readValue(line, BatchItemResult.class));
+        }
+        return results;
+    }
+
     private Matcher<WebApplicationException> hasResponseStatus(final int statusCode) {
         return new BaseMatcher<WebApplicationException>() {
             @Override
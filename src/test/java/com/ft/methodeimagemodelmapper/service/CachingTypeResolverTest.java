@@ -0,0 +1,147 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingTypeResolverTest {
+
+    private static final EomFile GRAPHIC = graphic("uuid-1", 1000, new byte[]{1, 2, 3});
+    private static final EomFile SAME_VERSION_REDELIVERED = graphic("uuid-1", 1000, new byte[]{1, 2, 3});
+    private static final EomFile OTHER_VERSION = graphic("uuid-1", 2000, new byte[]{1, 2, 4});
+    private static final EomFile OTHER_LENGTH = graphic("uuid-1", 1000, new byte[]{1, 2, 3, 4});
+    private static final EomFile OTHER_UUID = graphic("uuid-2", 1000, new byte[]{1, 2, 3});
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private TypeResolver delegate;
+
+    @Before
+    public void setUp() {
+        delegate = mock(TypeResolver.class);
+        when(delegate.getName()).thenReturn("binary");
+        when(delegate.getCost()).thenReturn(100);
+        when(delegate.resolve(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString())).thenReturn("Graphic");
+    }
+
+    @Test
+    public void testSameVersionIsResolvedOnce() {
+        final CachingTypeResolver resolver = new CachingTypeResolver(delegate, 10, 1, TimeUnit.HOURS, metrics);
+
+        assertThat(resolver.resolve(GRAPHIC, null, "image/png", "tid_1"), equalTo("Graphic"));
+        assertThat(resolver.resolve(SAME_VERSION_REDELIVERED, null, "image/png", "tid_2"), equalTo("Graphic"));
+
+        verify(delegate, times(1)).resolve(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString());
+        assertThat(meter("hits"), equalTo(1L));
+        assertThat(meter("misses"), equalTo(1L));
+    }
+
+    @Test
+    public void testOtherVersionOrMediaTypeIsResolvedAgain() {
+        final CachingTypeResolver resolver = new CachingTypeResolver(delegate, 10, 1, TimeUnit.HOURS, metrics);
+
+        resolver.resolve(GRAPHIC, null, "image/png", "tid_1");
+        resolver.resolve(OTHER_VERSION, null, "image/png", "tid_2");
+        resolver.resolve(OTHER_LENGTH, null, "image/png", "tid_3");
+        resolver.resolve(OTHER_UUID, null, "image/png", "tid_4");
+        resolver.resolve(GRAPHIC, null, "image/jpeg", "tid_5");
+
+        verify(delegate, times(5)).resolve(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString());
+        assertThat(meter("misses"), equalTo(5L));
+    }
+
+    @Test
+    public void testUndecidedAnswerIsCached() {
+        when(delegate.resolve(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString())).thenReturn(null);
+        final CachingTypeResolver resolver = new CachingTypeResolver(delegate, 10, 1, TimeUnit.HOURS, metrics);
+
+        assertThat(resolver.resolve(GRAPHIC, null, "image/png", "tid_1"), nullValue());
+        assertThat(resolver.resolve(GRAPHIC, null, "image/png", "tid_2"), nullValue());
+
+        verify(delegate, times(1)).resolve(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString());
+    }
+
+    @Test
+    public void testCacheIsBoundedAndEvictionsAreCounted() {
+        final CachingTypeResolver resolver = new CachingTypeResolver(delegate, 1, 1, TimeUnit.HOURS, metrics);
+
+        resolver.resolve(GRAPHIC, null, "image/png", "tid_1");
+        resolver.resolve(OTHER_VERSION, null, "image/png", "tid_2");
+
+        assertThat(resolver.size(), equalTo(1L));
+        assertThat(meter("evictions"), equalTo(1L));
+    }
+
+    @Test
+    public void testExpiredEntriesAreResolvedAgain() {
+        final ManualTicker ticker = new ManualTicker();
+        final CachingTypeResolver resolver = new CachingTypeResolver(delegate, 10, 1, TimeUnit.HOURS, metrics, ticker);
+
+        resolver.resolve(GRAPHIC, null, "image/png", "tid_1");
+        ticker.advance(59, TimeUnit.MINUTES);
+        resolver.resolve(GRAPHIC, null, "image/png", "tid_2");
+        verify(delegate, times(1)).resolve(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString());
+
+        ticker.advance(1, TimeUnit.MINUTES);
+        resolver.resolve(GRAPHIC, null, "image/png", "tid_3");
+
+        verify(delegate, times(2)).resolve(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString());
+        assertThat(meter("evictions"), equalTo(1L));
+    }
+
+    @Test
+    public void testKeepsNameAndCostOfDelegate() {
+        final CachingTypeResolver resolver = new CachingTypeResolver(delegate, 10, 1, TimeUnit.HOURS, metrics);
+
+        assertThat(resolver.getName(), equalTo("binary"));
+        assertThat(resolver.getCost(), equalTo(100));
+    }
+
+    @Test
+    public void testFileWithoutLastModifiedIsNotCached() {
+        final CachingTypeResolver resolver = new CachingTypeResolver(delegate, 10, 1, TimeUnit.HOURS, metrics);
+        final EomFile unversioned = new EomFile.Builder().withUuid("uuid-1").withValue(new byte[]{1, 2, 3}).build();
+
+        resolver.resolve(unversioned, null, "image/png", "tid_1");
+        resolver.resolve(unversioned, null, "image/png", "tid_2");
+
+        verify(delegate, times(2)).resolve(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString());
+        assertThat(resolver.size(), equalTo(0L));
+    }
+
+    private long meter(final String name) {
+        return metrics.meter(MetricRegistry.name(CachingTypeResolver.class, "binary", name)).getCount();
+    }
+
+    private static EomFile graphic(final String uuid, final long lastModified, final byte[] value) {
+        return new EomFile.Builder().withUuid(uuid).withValue(value).builder(new Date(lastModified)).build();
+    }
+
+    private static class ManualTicker extends Ticker {
+        private long nanos;
+
+        void advance(final long duration, final TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+}
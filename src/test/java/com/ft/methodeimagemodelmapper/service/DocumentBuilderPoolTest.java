@@ -0,0 +1,59 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DocumentBuilderPoolTest {
+
+    private final DocumentBuilderPool documentBuilderPool = new DocumentBuilderPool();
+
+    @Test
+    public void shouldReuseBuilderAfterMalformedDocument() throws Exception {
+        try {
+            documentBuilderPool.parse("<meta><picture><ot<<<ture></meta>");
+        } catch (SAXException expected) {
+            // the next document on this thread must parse normally
+        }
+
+        final Document document = documentBuilderPool.parse("<meta><picture>ok</picture></meta>");
+
+        assertThat(document.getDocumentElement().getTextContent(), equalTo("ok"));
+    }
+
+    @Test
+    public void shouldIgnoreExternalDtd() throws Exception {
+        final Document document = documentBuilderPool.parse("<!DOCTYPE meta SYSTEM \"/SysConfig/Classify/FTImages/classify.dtd\"><meta>empty</meta>");
+
+        assertThat(document.getDocumentElement().getTextContent(), equalTo("empty"));
+    }
+
+    @Test
+    public void shouldParseConcurrently() throws Exception {
+        final XPathRegistry xpaths = new XPathRegistry("/props/id");
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String id = Integer.toString(i);
+                results.add(executor.submit((Callable<Boolean>) () ->
+                        id.equals(xpaths.evaluate("/props/id", documentBuilderPool.parse("<props><id>" + id + "</id></props>")))));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(), equalTo(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
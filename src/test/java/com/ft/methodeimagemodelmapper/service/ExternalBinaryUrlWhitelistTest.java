@@ -0,0 +1,111 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ExternalBinaryUrlWhitelistTest {
+
+    private static final List<String> URLS = Arrays.asList(
+            "https://ig.ft.com/sites/graphic.png", "https://igXft.com/graphic.png", "http://ig.ft.com/graphic.png",
+            "https://im.ft-static.com/content/images/a.jpg", "https://im.ft-static.com/content/images/",
+            "http://www.ft.com/a", "http://ft.com/a", "https://ft.com/A", "aaab", "b", "abab", "", "https://IG.FT.COM/x");
+
+    private final MetricRegistry metrics = new MetricRegistry();
+
+    @Test
+    public void thatLiteralPrefixStopsAtTheFirstNonLiteral() {
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("https://ig\\.ft\\.com/.*"), equalTo("https://ig.ft.com/"));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("https?://ig"), equalTo("http"));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("http://(www\\.)?ft\\.com/.*"), equalTo("http://"));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("ab*c"), equalTo("a"));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("ab+c"), equalTo("ab"));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("ab{0,2}c"), equalTo("a"));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("\\d+"), equalTo(""));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("(?i)https://ig\\.ft\\.com/.*"), equalTo(""));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("https://a.*|https://b.*"), equalTo(""));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("https://(a|b).*"), equalTo("https://"));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("https://[a|b].*"), equalTo("https://"));
+        assertThat(ExternalBinaryUrlWhitelist.literalPrefix("ab\\Q(\\E|x"), equalTo(""));
+    }
+
+    @Test
+    public void thatWhitelistMatchesLikeStringMatches() {
+        for (List<String> patterns : Arrays.asList(
+                Collections.<String>emptyList(),
+                Collections.singletonList("https://ig\\.ft\\.com/.*"),
+                Arrays.asList("https://ig\\.ft\\.com/.*", "https://im\\.ft-static\\.com/content/images/.+"),
+                Arrays.asList("https?://ig.ft.com/.*", "http://(www\\.)?ft\\.com/.*"),
+                Arrays.asList("(?i)https://ig\\.ft\\.com/.*", "https://ft\\.com/[A-Z]"),
+                Arrays.asList("a*b", "(ab)\\1", ""),
+                Arrays.asList("(?<x>a)+b", "(?<x>ab)+"),
+                Arrays.asList("https://ft\\.com/.*|aaab", "b"))) {
+            final ExternalBinaryUrlWhitelist whitelist = new ExternalBinaryUrlWhitelist(patterns, metrics);
+            for (String url : URLS) {
+                assertThat(patterns + " " + url, whitelist.matches(url), equalTo(matchesAny(patterns, url)));
+            }
+        }
+    }
+
+    @Test
+    public void thatMissingUrlDoesNotMatch() {
+        assertThat(new ExternalBinaryUrlWhitelist(Collections.singletonList(".*"), metrics).matches(null), equalTo(false));
+    }
+
+    @Test
+    public void thatMatchesAndMissesAreCounted() {
+        final ExternalBinaryUrlWhitelist whitelist = new ExternalBinaryUrlWhitelist(
+                Collections.singletonList("https://ig\\.ft\\.com/.*"), metrics);
+
+        whitelist.matches("https://ig.ft.com/graphic.png");
+        whitelist.matches("http://www.ft.com/a");
+        whitelist.matches("https://ig.ft.com.evil/graphic.png");
+
+        assertThat(metrics.counter(MetricRegistry.name(ExternalBinaryUrlWhitelist.class, "match")).getCount(), equalTo(1L));
+        assertThat(metrics.counter(MetricRegistry.name(ExternalBinaryUrlWhitelist.class, "miss")).getCount(), equalTo(2L));
+    }
+
+    @Test
+    public void thatUpdateReplacesTheWhitelist() {
+        final ExternalBinaryUrlWhitelist whitelist = new ExternalBinaryUrlWhitelist(
+                Collections.singletonList("https://ig\\.ft\\.com/.*"), metrics);
+
+        whitelist.update(Collections.singletonList("http://www\\.ft\\.com/.*"));
+
+        assertThat(whitelist.matches("https://ig.ft.com/graphic.png"), equalTo(false));
+        assertThat(whitelist.matches("http://www.ft.com/a"), equalTo(true));
+        assertThat(whitelist.getPatterns(), equalTo(Collections.singletonList("http://www\\.ft\\.com/.*")));
+    }
+
+    @Test
+    public void thatInvalidUpdateKeepsTheWhitelist() {
+        final ExternalBinaryUrlWhitelist whitelist = new ExternalBinaryUrlWhitelist(
+                Collections.singletonList("https://ig\\.ft\\.com/.*"), metrics);
+
+        try {
+            whitelist.update(Arrays.asList("http://www\\.ft\\.com/.*", "https://ig\\.ft\\.com/(.*"));
+            fail("expected PatternSyntaxException");
+        } catch (PatternSyntaxException expected) {
+        }
+
+        assertThat(whitelist.matches("https://ig.ft.com/graphic.png"), equalTo(true));
+        assertThat(whitelist.matches("http://www.ft.com/a"), equalTo(false));
+    }
+
+    private static boolean matchesAny(final List<String> patterns, final String url) {
+        for (String pattern : patterns) {
+            if (url.matches(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
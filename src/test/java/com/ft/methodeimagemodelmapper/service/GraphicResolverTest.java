@@ -1,10 +1,12 @@
 package com.ft.methodeimagemodelmapper.service;
 
 import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
@@ -111,4 +113,44 @@ public class GraphicResolverTest {
         final String actualType = graphicResolver.resolveType(eomFile, "image/png", "tid_test");
         assertEquals("Image", actualType);
     }
+
+    @Test
+    public void testPngImageAndParsedMethodeMetadataResultsGraphic() throws Exception {
+        final EomFile eomFile = new EomFile.Builder().withValue(SAMPLE_PNG_IMAGE).build();
+        final ImageAttributes attributes = new ImageAttributes.Builder().withFtImageType("graphic").build();
+        final String actualType = graphicResolver.resolveType(eomFile, attributes, "image/png", "tid_test");
+        assertEquals("Graphic", actualType);
+    }
+
+    @Test
+    public void testGraphicAndMissingParsedMethodeMetadataResultsGraphic() throws Exception {
+        final EomFile eomFile = new EomFile.Builder().withValue(SAMPLE_GRAPHIC).build();
+        final String actualType = graphicResolver.resolveType(eomFile, null, "image/png", "tid_test");
+        assertEquals("Graphic", actualType);
+    }
+
+    @Test
+    public void testPngImageAndParsedNonGraphicMethodeMetadataResultsImage() throws Exception {
+        final EomFile eomFile = new EomFile.Builder().withValue(SAMPLE_PNG_IMAGE).build();
+        final ImageAttributes attributes = new ImageAttributes.Builder().withFtImageType("photo").build();
+        final String actualType = graphicResolver.resolveType(eomFile, attributes, "image/png", "tid_test");
+        assertEquals("Image", actualType);
+    }
+
+    @Test
+    public void testJpegWithGraphicXmpIsGraphic() throws Exception {
+        final byte[] xmp = ("http://ns.adobe.com/xap/1.0/\0<x:xmpmeta xmlns:x=\"adobe:ns:meta/\">" +
+                "<rdf:Description ft:FTImageType=\"graphic\"/></x:xmpmeta>").getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] jpeg = new byte[xmp.length + 6];
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        jpeg[2] = (byte) 0xFF;
+        jpeg[3] = (byte) 0xE1;
+        jpeg[4] = (byte) ((xmp.length + 2) >>> 8);
+        jpeg[5] = (byte) (xmp.length + 2);
+        System.arraycopy(xmp, 0, jpeg, 6, xmp.length);
+        final EomFile eomFile = new EomFile.Builder().withValue(jpeg).build();
+        assertEquals("Graphic", graphicResolver.resolveType(eomFile, "image/jpeg", "tid_test"));
+        assertEquals("Image", graphicResolver.resolveType(eomFile, "image/bmp", "tid_test"));
+    }
 }
@@ -0,0 +1,252 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImageMetadataSnifferTest {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] KEY = "ftimagetype".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] VALUE = "graphic".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static byte[] SAMPLE_GRAPHIC;
+    private static byte[] SAMPLE_PNG_IMAGE;
+    private static byte[] SAMPLE_JPEG_IMAGE;
+
+    private final ImageMetadataSniffer sniffer = new ImageMetadataSniffer();
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        SAMPLE_GRAPHIC = Files.readAllBytes(Paths.get("src/test/resources/sample-graphic.png"));
+        SAMPLE_PNG_IMAGE = Files.readAllBytes(Paths.get("src/test/resources/sample-image.png"));
+        SAMPLE_JPEG_IMAGE = Files.readAllBytes(Paths.get("src/test/resources/sample-image.jpg"));
+    }
+
+    @Test
+    public void testSampleGraphicMatches() {
+        assertTrue(sniffer.pngContainsTag(SAMPLE_GRAPHIC, KEY, VALUE));
+    }
+
+    @Test
+    public void testSamplePngImageDoesNotMatch() {
+        assertFalse(sniffer.pngContainsTag(SAMPLE_PNG_IMAGE, KEY, VALUE));
+    }
+
+    @Test
+    public void testJpegIsNotPng() {
+        assertFalse(sniffer.isPng(SAMPLE_JPEG_IMAGE));
+        assertFalse(sniffer.pngContainsTag(SAMPLE_JPEG_IMAGE, KEY, VALUE));
+        assertTrue(sniffer.isJpeg(SAMPLE_JPEG_IMAGE));
+        assertFalse(sniffer.isJpeg(SAMPLE_GRAPHIC));
+    }
+
+    @Test
+    public void testMissingValueIsNotPng() {
+        assertFalse(sniffer.isPng(null));
+        assertFalse(sniffer.isPng(new byte[3]));
+        assertFalse(sniffer.isJpeg(null));
+    }
+
+    @Test
+    public void testKeyAndValueMustBeInTheSameEntry() throws Exception {
+        final byte[] png = png(chunk("tEXt", "ftimagetype\0photo"), chunk("tEXt", "Comment\0graphic"), chunk("IEND", ""));
+        assertFalse(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testInternationalTextMatches() throws Exception {
+        final byte[] png = png(chunk("IHDR", new byte[13]), chunk("iTXt", "FTImageType\0\0\0en\0\0graphic"), chunk("IEND", ""));
+        assertTrue(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testCompressedInternationalTextMatches() throws Exception {
+        final byte[] png = png(chunk("iTXt", concat(latin1("FTImageType\0\1\0en\0\0"), deflate("graphic"))), chunk("IEND", ""));
+        assertTrue(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testCompressedTextMatches() throws Exception {
+        final byte[] png = png(chunk("zTXt", concat(latin1("ftimagetype\0\0"), deflate("Graphic"))), chunk("IEND", ""));
+        assertTrue(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testCompressedTextWithOtherKeywordIsNotInflated() throws Exception {
+        final byte[] png = png(chunk("zTXt", concat(latin1("Comment\0\0"), deflate("ftimagetype graphic"))), chunk("IEND", ""));
+        assertFalse(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testCorruptCompressedTextDoesNotMatch() throws Exception {
+        final byte[] png = png(chunk("zTXt", concat(latin1("ftimagetype\0\0"), latin1("not deflated"))), chunk("IEND", ""));
+        assertFalse(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testCompressedTextIsInflatedWithinBound() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        while (text.length() <= ImageMetadataSniffer.MAX_INFLATED_TEXT_BYTES) {
+            text.append(' ');
+        }
+        final byte[] png = png(chunk("zTXt", concat(latin1("ftimagetype\0\0"), deflate(text.append("graphic").toString()))), chunk("IEND", ""));
+        assertFalse(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testPngXmpPacketMatches() throws Exception {
+        final byte[] png = png(chunk("iTXt", "XML:com.adobe.xmp\0\0\0\0\0" + xmp()), chunk("IEND", ""));
+        assertTrue(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testCompressedPngXmpPacketMatches() throws Exception {
+        final byte[] png = png(chunk("iTXt", concat(latin1("XML:com.adobe.xmp\0\1\0\0\0"), deflate(xmp()))), chunk("IEND", ""));
+        assertTrue(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testSampleJpegDoesNotMatch() {
+        assertFalse(sniffer.jpegContainsTag(SAMPLE_JPEG_IMAGE, KEY, VALUE));
+    }
+
+    @Test
+    public void testJpegXmpSegmentMatches() throws Exception {
+        final byte[] jpeg = jpeg(segment(0xE0, latin1("JFIF\0")), segment(0xE1, latin1("http://ns.adobe.com/xap/1.0/\0" + xmp())),
+                segment(0xDA, new byte[10]));
+        assertTrue(sniffer.jpegContainsTag(jpeg, KEY, VALUE));
+    }
+
+    @Test
+    public void testJpegNonXmpSegmentIsIgnored() throws Exception {
+        final byte[] jpeg = jpeg(segment(0xE1, latin1("Exif\0\0ftimagetype graphic")), segment(0xDA, new byte[10]));
+        assertFalse(sniffer.jpegContainsTag(jpeg, KEY, VALUE));
+    }
+
+    @Test
+    public void testJpegScanDataIsNotSearched() throws Exception {
+        final byte[] jpeg = jpeg(segment(0xDA, new byte[10]), segment(0xE1, latin1("http://ns.adobe.com/xap/1.0/\0" + xmp())));
+        assertFalse(sniffer.jpegContainsTag(jpeg, KEY, VALUE));
+    }
+
+    @Test
+    public void testTruncatedJpegSegmentDoesNotMatch() throws Exception {
+        final byte[] jpeg = jpeg(segment(0xE1, latin1("http://ns.adobe.com/xap/1.0/\0" + xmp())));
+        assertFalse(sniffer.jpegContainsTag(Arrays.copyOf(jpeg, jpeg.length - 10), KEY, VALUE));
+    }
+
+    @Test
+    public void testTextIsMatchedCaseInsensitively() throws Exception {
+        final byte[] png = png(chunk("IHDR", new byte[13]), chunk("tEXt", "FTImageType\0Graphic"), chunk("IEND", ""));
+        assertTrue(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testLaterTextChunkIsConsidered() throws Exception {
+        final byte[] png = png(chunk("tEXt", "Software\0Methode"), chunk("tEXt", "ftimagetype\0graphic"), chunk("IEND", ""));
+        assertTrue(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testTextAfterImageDataIsFound() throws Exception {
+        final byte[] png = png(chunk("IHDR", new byte[13]), chunk("IDAT", new byte[64]), chunk("tEXt", "ftimagetype\0graphic"), chunk("IEND", ""));
+        assertTrue(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testTextAfterEndIsIgnored() throws Exception {
+        final byte[] png = png(chunk("IHDR", new byte[13]), chunk("IEND", ""), chunk("tEXt", "ftimagetype\0graphic"));
+        assertFalse(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    @Test
+    public void testTruncatedChunkDoesNotMatch() throws Exception {
+        final byte[] png = png(chunk("tEXt", "ftimagetype\0graphic"));
+        assertFalse(sniffer.pngContainsTag(Arrays.copyOf(png, png.length - 10), KEY, VALUE));
+    }
+
+    @Test
+    public void testNegativeLengthDoesNotMatch() throws Exception {
+        final byte[] png = png(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 't', 'E', 'X', 't'});
+        assertFalse(sniffer.pngContainsTag(png, KEY, VALUE));
+    }
+
+    private static String xmp() {
+        return "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"><rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">" +
+                "<rdf:Description xmlns:ft=\"http://ft.com/ns/\" ft:FTImageType=\"graphic\"/></rdf:RDF></x:xmpmeta>";
+    }
+
+    private static byte[] jpeg(final byte[]... segments) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xD8);
+        for (byte[] segment : segments) {
+            out.write(segment);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] segment(final int marker, final byte[] data) {
+        final byte[] segment = new byte[data.length + 4];
+        segment[0] = (byte) 0xFF;
+        segment[1] = (byte) marker;
+        segment[2] = (byte) ((data.length + 2) >>> 8);
+        segment[3] = (byte) (data.length + 2);
+        System.arraycopy(data, 0, segment, 4, data.length);
+        return segment;
+    }
+
+    private static byte[] deflate(final String text) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] latin1(final String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] concat(final byte[] first, final byte[] second) {
+        final byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static byte[] png(final byte[]... chunks) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(SIGNATURE);
+        for (byte[] chunk : chunks) {
+            out.write(chunk);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] chunk(final String type, final String data) throws IOException {
+        return chunk(type, data.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static byte[] chunk(final String type, final byte[] data) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(data.length >>> 24);
+        out.write(data.length >>> 16);
+        out.write(data.length >>> 8);
+        out.write(data.length);
+        out.write(type.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(data);
+        out.write(new byte[4]);
+        return out.toByteArray();
+    }
+}
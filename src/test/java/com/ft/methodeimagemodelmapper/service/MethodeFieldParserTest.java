@@ -0,0 +1,56 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class MethodeFieldParserTest {
+
+    @Test
+    public void thatIntegersParseLikeIntegerParseInt() {
+        for (String value : Arrays.asList("0", "2048", "+1152", "-7", "007", "2147483647", "-2147483648")) {
+            assertThat(value, MethodeFieldParser.parseInt(value), equalTo(Integer.parseInt(value)));
+        }
+    }
+
+    @Test
+    public void thatMalformedIntegersAreNull() {
+        for (String value : Arrays.asList(null, "", "-", "+", " 2048", "2048px", "20.48", "2147483648", "-2147483649")) {
+            assertThat(String.valueOf(value), MethodeFieldParser.parseInt(value), nullValue());
+        }
+    }
+
+    @Test
+    public void thatTimestampsParseLikeTheMethodeDateFormat() throws Exception {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        for (String value : Arrays.asList("20130509124528", "19700101000000", "20000229235959", "20991231000000")) {
+            assertThat(value, MethodeFieldParser.parseTimestamp(value), equalTo(dateFormat.parse(value)));
+        }
+    }
+
+    @Test
+    public void thatWhitespaceAndTrailingCharactersAreIgnored() throws Exception {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        final Date expected = dateFormat.parse("20130509124528");
+        for (String value : Arrays.asList(" 20130509124528", "20130509124528 ", "\t20130509124528Z", "201305091245289")) {
+            assertThat(value, MethodeFieldParser.parseTimestamp(value), equalTo(expected));
+        }
+    }
+
+    @Test
+    public void thatMalformedTimestampsAreNull() {
+        for (String value : Arrays.asList(null, "", "20130509", "  2013050912452", "2013050912452x", "20131309124528",
+                "20130230124528", "20190229000000", "20130509244528", "20130509126028", "00000101000000")) {
+            assertThat(String.valueOf(value), MethodeFieldParser.parseTimestamp(value), nullValue());
+        }
+    }
+}
@@ -3,13 +3,23 @@ package com.ft.methodeimagemodelmapper.service;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
-
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
 import com.ft.content.model.Content;
 
 import com.ft.content.model.Distribution;
 import com.ft.methodeimagemodelmapper.exception.MethodeContentNotSupportedException;
 import com.ft.methodeimagemodelmapper.exception.TransformationException;
 import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
@@ -21,6 +31,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.runners.MockitoJUnitRunner;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -214,6 +225,68 @@ public class MethodeImageModelMapperTest {
         assertThat(content.getPublishReference(), equalTo(TRANSACTION_ID));
     }
 
+    @Test
+    public void testAttributesAreParsedOnceAndSharedWithGraphicResolver() throws Exception {
+        final AttributesExtractor attributesExtractor = spy(new StaxAttributesExtractor());
+        final GraphicResolver graphicResolver = mock(GraphicResolver.class);
+        when(graphicResolver.resolveType(any(EomFile.class), any(ImageAttributes.class), anyString(), anyString())).thenReturn("Graphic");
+        methodeImageModelMapper = new MethodeImageModelMapper("com.ft.imagepublish.upp-prod-eu.s3.amazonaws.com/",
+                Arrays.asList("https://ig\\.ft\\.com/.*"), graphicResolver, attributesExtractor);
+        final String attributes = loadFile("sample-attributes.xml")
+                .replace("<imageType>Master_2048x1152</imageType>", "<FTImageType>graphic</FTImageType>");
+        final EomFile eomFile = new EomFile(UUID, "Image", null, attributes, "",
+                loadFile("sample-system-attributes.xml").replace("JPEG", "PNG"), loadFile("sample-usage-tickets.xml"), LAST_MODIFIED_DATE);
+
+        final Content content = methodeImageModelMapper.mapImageModel(eomFile, TRANSACTION_ID, LAST_MODIFIED_DATE);
+
+        assertThat(content.getType(), equalTo("Graphic"));
+        verify(attributesExtractor, times(1)).extract(anyString());
+        final ArgumentCaptor<ImageAttributes> sharedAttributes = ArgumentCaptor.forClass(ImageAttributes.class);
+        verify(graphicResolver).resolveType(eq(eomFile), sharedAttributes.capture(), eq("image/png"), eq(TRANSACTION_ID));
+        assertThat(sharedAttributes.getValue().getFtImageType(), equalTo("graphic"));
+    }
+
+    @Test
+    public void testStageTimersAndUnsupportedCounterAreRecorded() throws Exception {
+        final MetricRegistry metrics = new MetricRegistry();
+        methodeImageModelMapper = new MethodeImageModelMapper("com.ft.imagepublish.upp-prod-eu.s3.amazonaws.com/",
+                Arrays.asList("https://ig\\.ft\\.com/.*"), new GraphicResolver(), new DomAttributesExtractor(), metrics);
+
+        methodeImageModelMapper.mapImageModel(createSampleMethodeImage(), TRANSACTION_ID, LAST_MODIFIED_DATE);
+        try {
+            methodeImageModelMapper.mapImageModel(new EomFile(UUID, "article", null, "", "", "", "", LAST_MODIFIED_DATE),
+                    TRANSACTION_ID, LAST_MODIFIED_DATE);
+        } catch (MethodeContentNotSupportedException expected) {
+        }
+
+        for (String stage : Arrays.asList("attributes", "system-attributes", "usage-tickets", "graphic-resolver")) {
+            assertThat(stage, metrics.timer(MetricRegistry.name(MethodeImageModelMapper.class, stage)).getCount(), equalTo(1L));
+        }
+        assertThat(metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "unsupported")).getCount(), equalTo(1L));
+    }
+
+    @Test
+    public void testMissingAndMalformedFieldsAreCounted() throws Exception {
+        final MetricRegistry metrics = new MetricRegistry();
+        methodeImageModelMapper = new MethodeImageModelMapper("com.ft.imagepublish.upp-prod-eu.s3.amazonaws.com/",
+                Arrays.asList("https://ig\\.ft\\.com/.*"), new GraphicResolver(), new DomAttributesExtractor(), metrics);
+        final String systemAttributes = loadFile("sample-system-attributes.xml")
+                .replace("<width>2048</width>", "<width></width>")
+                .replace("<height>1152</height>", "<height>1152px</height>");
+        final EomFile eomFile = new EomFile(UUID, "Image", null, loadFile("sample-attributes.xml"), "", systemAttributes,
+                "<tl><t><tp>web_publication</tp><cd>20131309124528</cd></t></tl>", LAST_MODIFIED_DATE);
+
+        final Content content = methodeImageModelMapper.mapImageModel(eomFile, TRANSACTION_ID, LAST_MODIFIED_DATE);
+
+        assertThat(content.getPixelWidth(), nullValue());
+        assertThat(content.getPixelHeight(), nullValue());
+        assertThat(content.getPublishedDate(), nullValue());
+        assertThat(metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "missing", "width")).getCount(), equalTo(1L));
+        assertThat(metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "malformed", "height")).getCount(), equalTo(1L));
+        assertThat(metrics.counter(MetricRegistry.name(MethodeImageModelMapper.class, "malformed", "web-publication-date")).getCount(),
+                equalTo(1L));
+    }
+
     @Test(expected = TransformationException.class)
     public void testTransformAndHandleExceptionsThrowsTransformationException() {
         final EomFile eomFile = new EomFile(UUID, "Image", null, "", "", "", "", null);
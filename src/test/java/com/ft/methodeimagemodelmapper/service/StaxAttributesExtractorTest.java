@@ -0,0 +1,146 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ft.content.model.Content;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StaxAttributesExtractorTest {
+
+    private static final String UUID = "d7625378-d4cd-11e2-bce1-002128161462";
+    private static final String TRANSACTION_ID = "tid_ptvw9xpnhv";
+    private static final Date LAST_MODIFIED_DATE = new Date(300L);
+
+    private final StaxAttributesExtractor staxExtractor = new StaxAttributesExtractor();
+    private final DomAttributesExtractor domExtractor = new DomAttributesExtractor();
+
+    @Test
+    public void shouldExtractSameValuesAsDomFromSampleAttributes() throws Exception {
+        assertSameAsDom(loadFile("sample-attributes.xml"));
+    }
+
+    @Test
+    public void shouldExtractSameValuesAsDomFromAttributesWithExternalBinaryUrl() throws Exception {
+        assertSameAsDom(loadFile("sample-attributes-with-external-binary-url.xml"));
+    }
+
+    @Test
+    public void shouldExtractSameValuesAsDomFromNativeMethodeMessage() throws Exception {
+        final EomFile eomFile = new ObjectMapper().reader(EomFile.class).readValue(loadFile("native-methode-image-model.json"));
+        assertSameAsDom(eomFile.getAttributes());
+    }
+
+    @Test
+    public void shouldExtractRightsAndUsage() throws Exception {
+        final String attributes = "<meta><picture><FTRights><FTSyndication>Yes</FTSyndication>" +
+                "<FTAggregation>No</FTAggregation><FTSource>Getty</FTSource></FTRights>" +
+                "<FTUsage><FTFotowareID>12345</FTFotowareID></FTUsage></picture></meta>";
+
+        final ImageAttributes actual = staxExtractor.extract(attributes);
+
+        assertThat(actual.getFtSyndication(), equalTo("Yes"));
+        assertThat(actual.getFtAggregation(), equalTo("No"));
+        assertThat(actual.getFtSource(), equalTo("Getty"));
+        assertThat(actual.getFtFotowareId(), equalTo("12345"));
+        assertSameAsDom(attributes);
+    }
+
+    @Test
+    public void shouldTakeFirstMatchAndDescendantText() throws Exception {
+        final String attributes = "<meta><picture><web_information><caption>first <b>bold</b> <![CDATA[& raw]]></caption>" +
+                "<caption>second</caption></web_information></picture>" +
+                "<picture><web_information><alt_tag>from second picture</alt_tag></web_information></picture></meta>";
+
+        final ImageAttributes actual = staxExtractor.extract(attributes);
+
+        assertThat(actual.getCaption(), equalTo("first bold & raw"));
+        assertThat(actual.getAltTag(), equalTo("from second picture"));
+        assertSameAsDom(attributes);
+    }
+
+    @Test
+    public void shouldExtractImageType() throws Exception {
+        final String attributes = "<meta><picture><FTImageType>graphic</FTImageType></picture></meta>";
+
+        assertThat(staxExtractor.extract(attributes).getFtImageType(), equalTo("graphic"));
+        assertSameAsDom(attributes);
+    }
+
+    @Test
+    public void shouldIgnoreElementsOutsidePicture() throws Exception {
+        final String attributes = "<meta><caption>no</caption><other><picture><ExternalUrl>no</ExternalUrl></picture></other>" +
+                "<picture><ExternalUrl>https://ig.ft.com/x.png</ExternalUrl></picture></meta>";
+
+        assertThat(staxExtractor.extract(attributes).getExternalUrl(), equalTo("https://ig.ft.com/x.png"));
+        assertSameAsDom(attributes);
+    }
+
+    @Test
+    public void shouldReturnEmptyValuesForUnrelatedXml() throws Exception {
+        assertSameAsDom("<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+                "<!DOCTYPE meta SYSTEM \"/SysConfig/Classify/FTImages/classify.dtd\">" +
+                "<meta>empty</meta>");
+    }
+
+    @Test(expected = SAXException.class)
+    public void shouldFailOnMalformedXml() throws Exception {
+        staxExtractor.extract("<meta><picture><ot<<<ture></meta>");
+    }
+
+    @Test(expected = SAXException.class)
+    public void shouldFailOnMalformedXmlAfterAllValuesWereFound() throws Exception {
+        staxExtractor.extract("<meta><picture><web_information><caption>c</caption></web_information></picture><broken></meta>");
+    }
+
+    @Test(expected = SAXException.class)
+    public void shouldFailOnEmptyAttributes() throws Exception {
+        staxExtractor.extract("");
+    }
+
+    @Test
+    public void shouldMapSameContentAsDomExtractor() throws Exception {
+        final EomFile eomFile = new EomFile(UUID, "Image", null, loadFile("sample-attributes.xml"), "",
+                loadFile("sample-system-attributes.xml"), loadFile("sample-usage-tickets.xml"), LAST_MODIFIED_DATE);
+        final MethodeImageModelMapper domMapper = new MethodeImageModelMapper("http://s3.example.com/",
+                Arrays.asList("https://ig\\.ft\\.com/.*"), new GraphicResolver(), domExtractor);
+        final MethodeImageModelMapper staxMapper = new MethodeImageModelMapper("http://s3.example.com/",
+                Arrays.asList("https://ig\\.ft\\.com/.*"), new GraphicResolver(), staxExtractor);
+
+        final Content expected = domMapper.mapImageModel(eomFile, TRANSACTION_ID, LAST_MODIFIED_DATE);
+        final Content actual = staxMapper.mapImageModel(eomFile, TRANSACTION_ID, LAST_MODIFIED_DATE);
+
+        assertThat(actual, equalTo(expected));
+    }
+
+    private void assertSameAsDom(final String attributes) throws Exception {
+        final ImageAttributes expected = domExtractor.extract(attributes);
+        final ImageAttributes actual = staxExtractor.extract(attributes);
+
+        assertThat(actual.getCaption(), equalTo(expected.getCaption()));
+        assertThat(actual.getAltTag(), equalTo(expected.getAltTag()));
+        assertThat(actual.getOnlineSource(), equalTo(expected.getOnlineSource()));
+        assertThat(actual.getManualSource(), equalTo(expected.getManualSource()));
+        assertThat(actual.getFtAggregation(), equalTo(expected.getFtAggregation()));
+        assertThat(actual.getFtSyndication(), equalTo(expected.getFtSyndication()));
+        assertThat(actual.getFtSource(), equalTo(expected.getFtSource()));
+        assertThat(actual.getFtFotowareId(), equalTo(expected.getFtFotowareId()));
+        assertThat(actual.getExternalUrl(), equalTo(expected.getExternalUrl()));
+        assertThat(actual.getFtImageType(), equalTo(expected.getFtImageType()));
+    }
+
+    private String loadFile(final String filename) throws Exception {
+        final URI uri = getClass().getClassLoader().getResource(filename).toURI();
+        return new String(Files.readAllBytes(Paths.get(uri)), "UTF-8");
+    }
+}
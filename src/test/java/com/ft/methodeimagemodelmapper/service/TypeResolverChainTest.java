@@ -0,0 +1,124 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.ft.methodeimagemodelmapper.model.EomFile;
+import com.ft.methodeimagemodelmapper.model.ImageAttributes;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TypeResolverChainTest {
+
+    private static final EomFile EOM_FILE = new EomFile.Builder().withValue(new byte[0]).build();
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final List<String> invoked = new ArrayList<>();
+
+    @Test
+    public void testResolversRunFromCheapestToMostExpensive() {
+        final TypeResolverChain chain = new TypeResolverChain(Arrays.asList(
+                new FixedResolver("expensive", 100, null),
+                new FixedResolver("cheap", 0, null),
+                new FixedResolver("medium", 10, null)), "Image", metrics);
+
+        chain.resolve(EOM_FILE, null, "image/png", "tid_test");
+
+        assertThat(invoked, equalTo(Arrays.asList("cheap", "medium", "expensive")));
+    }
+
+    @Test
+    public void testChainStopsAtFirstDecisiveAnswer() {
+        final TypeResolverChain chain = new TypeResolverChain(Arrays.asList(
+                new FixedResolver("cheap", 0, null),
+                new FixedResolver("medium", 10, "Graphic"),
+                new FixedResolver("expensive", 100, "Image")), "Image", metrics);
+
+        assertThat(chain.resolve(EOM_FILE, null, "image/png", "tid_test"), equalTo("Graphic"));
+        assertThat(invoked, equalTo(Arrays.asList("cheap", "medium")));
+    }
+
+    @Test
+    public void testDefaultTypeWhenNoResolverDecides() {
+        final TypeResolverChain chain = new TypeResolverChain(Arrays.asList(
+                new FixedResolver("cheap", 0, null)), "Image", metrics);
+
+        assertThat(chain.resolve(EOM_FILE, null, "image/png", "tid_test"), equalTo("Image"));
+    }
+
+    @Test
+    public void testMetricsArePublishedPerResolver() {
+        final TypeResolverChain chain = new TypeResolverChain(Arrays.asList(
+                new FixedResolver("cheap", 0, null),
+                new FixedResolver("expensive", 100, "Graphic")), "Image", metrics);
+
+        chain.resolve(EOM_FILE, null, "image/png", "tid_test");
+        chain.resolve(EOM_FILE, null, "image/png", "tid_test");
+
+        assertThat(metrics.timer(MetricRegistry.name(TypeResolverChain.class, "cheap", "resolve")).getCount(), equalTo(2L));
+        assertThat(metrics.meter(MetricRegistry.name(TypeResolverChain.class, "cheap", "decisive")).getCount(), equalTo(0L));
+        assertThat(metrics.meter(MetricRegistry.name(TypeResolverChain.class, "expensive", "decisive")).getCount(), equalTo(2L));
+        assertThat(hitRate("cheap"), equalTo(0.0));
+        assertThat(hitRate("expensive"), equalTo(1.0));
+    }
+
+    @Test
+    public void testChainsCanShareRegistry() {
+        new TypeResolverChain(Arrays.asList(new FixedResolver("cheap", 0, "Image")), "Image", metrics);
+        final TypeResolverChain chain = new TypeResolverChain(Arrays.asList(new FixedResolver("cheap", 0, "Image")), "Image", metrics);
+
+        chain.resolve(EOM_FILE, null, "image/png", "tid_test");
+
+        assertThat(hitRate("cheap"), equalTo(1.0));
+    }
+
+    @Test
+    public void testDefaultResolversAreOrderedByCost() {
+        final TypeResolverChain chain = new TypeResolverChain(GraphicResolver.defaultResolvers(), "Image", metrics);
+        final List<String> names = new ArrayList<>();
+        for (TypeResolver resolver : chain.getResolvers()) {
+            names.add(resolver.getName());
+        }
+
+        assertThat(names, equalTo(Arrays.asList("media-type", "methode-metadata", "png-metadata", "jpeg-metadata")));
+    }
+
+    private double hitRate(final String resolverName) {
+        final Gauge gauge = metrics.getGauges().get(MetricRegistry.name(TypeResolverChain.class, resolverName, "hit-rate"));
+        return (Double) gauge.getValue();
+    }
+
+    private class FixedResolver implements TypeResolver {
+
+        private final String name;
+        private final int cost;
+        private final String type;
+
+        FixedResolver(final String name, final int cost, final String type) {
+            this.name = name;
+            this.cost = cost;
+            this.type = type;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getCost() {
+            return cost;
+        }
+
+        @Override
+        public String resolve(final EomFile eomFile, final ImageAttributes attributes, final String mediaType, final String transactionId) {
+            invoked.add(name);
+            return type;
+        }
+    }
+}
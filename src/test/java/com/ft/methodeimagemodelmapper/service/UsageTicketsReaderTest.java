@@ -0,0 +1,80 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class UsageTicketsReaderTest {
+
+    private static final String WEB_PUBLICATION_DATE = "/tl/t[tp = 'web_publication'][count(/tl/t[tp = 'web_publication'])]/cd";
+
+    private final UsageTicketsReader reader = new UsageTicketsReader();
+    private final DocumentBuilderPool documentBuilderPool = new DocumentBuilderPool();
+    private final XPathRegistry xpaths = new XPathRegistry(WEB_PUBLICATION_DATE);
+
+    @Test
+    public void thatSampleTicketsGiveTheSameDateAsXPath() throws Exception {
+        final String sample = new String(Files.readAllBytes(Paths.get(getClass().getClassLoader()
+                .getResource("sample-usage-tickets.xml").toURI())), "UTF-8");
+
+        assertSameAsXPath(sample);
+        assertThat(reader.lastWebPublicationDate(sample).isEmpty(), equalTo(false));
+    }
+
+    @Test
+    public void thatEdgeCasesGiveTheSameDateAsXPath() throws Exception {
+        for (String tickets : Arrays.asList(
+                "<tl/>",
+                "<tl><t><tp>mms</tp><cd>1</cd></t></tl>",
+                "<tl><t><tp>web_publication</tp><cd>1</cd></t><t><tp>mms</tp><cd>2</cd></t></tl>",
+                "<tl><t><tp>web_publication</tp><cd>1</cd></t><t><tp>web_publication</tp><cd>2</cd></t></tl>",
+                "<tl><t><tp>web_publication</tp><cd>1</cd></t><t><tp>web_publication</tp></t></tl>",
+                "<tl><t><cd>1</cd><tp>web_publication</tp></t></tl>",
+                "<tl><t><tp>web_publication</tp><cd>1</cd><cd>2</cd></t></tl>",
+                "<tl><t><tp>mms</tp><tp>web_publication</tp><cd>1</cd></t></tl>",
+                "<tl><t><tp> web_publication</tp><cd>1</cd></t></tl>",
+                "<tl><t><tp>web_<!-- split -->publication</tp><cd><![CDATA[2014]]>0317<b>12</b>0800</cd></t></tl>",
+                "<tl><t><tp>web&#95;publication</tp><cd> 20140317120800 </cd></t></tl>",
+                "<tl><x><t><tp>web_publication</tp><cd>1</cd></t></x></tl>",
+                "<tl><x><tp>web_publication</tp><cd>1</cd></x></tl>",
+                "<tl><t><x><tp>web_publication</tp><cd>1</cd></x></t></tl>",
+                "<other><t><tp>web_publication</tp><cd>1</cd></t></other>",
+                "<?xml version='1.0'?>\n<!-- tickets -->\n<tl>\n  <t>\n    <tp>web_publication</tp>\n    <cd>1</cd>\n  </t>\n</tl>")) {
+            assertSameAsXPath(tickets);
+        }
+    }
+
+    @Test
+    public void thatManyTicketsGiveTheSameDateAsXPath() throws Exception {
+        final StringBuilder tickets = new StringBuilder("<tl>");
+        for (int i = 0; i < 500; i++) {
+            tickets.append("<t><id>").append(i).append("</id><tp>").append(i % 3 == 0 ? "web_publication" : "mms")
+                    .append("</tp><cd>").append(20140000000000L + i).append("</cd></t>");
+        }
+        tickets.append("</tl>");
+
+        assertSameAsXPath(tickets.toString());
+        assertThat(reader.lastWebPublicationDate(tickets.toString()), equalTo("20140000000498"));
+    }
+
+    @Test(expected = SAXException.class)
+    public void thatMalformedTicketsAreRejected() throws Exception {
+        reader.lastWebPublicationDate("<tl><t><tp>web_publication</tp><cd>1</cd></t>");
+    }
+
+    @Test(expected = SAXException.class)
+    public void thatEmptyTicketsAreRejected() throws Exception {
+        reader.lastWebPublicationDate("");
+    }
+
+    private void assertSameAsXPath(final String tickets) throws Exception {
+        assertThat(tickets, reader.lastWebPublicationDate(tickets),
+                equalTo(xpaths.evaluate(WEB_PUBLICATION_DATE, documentBuilderPool.parse(tickets))));
+    }
+}
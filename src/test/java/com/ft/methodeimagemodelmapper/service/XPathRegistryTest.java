@@ -0,0 +1,42 @@
+package com.ft.methodeimagemodelmapper.service;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class XPathRegistryTest {
+
+    private static final String WEB_PUBLICATION_DATE = "/tl/t[tp = 'web_publication'][count(/tl/t[tp = 'web_publication'])]/cd";
+
+    private final DocumentBuilderPool documentBuilderPool = new DocumentBuilderPool();
+    private final XPathRegistry xpaths = new XPathRegistry("/props/imageInfo/width", WEB_PUBLICATION_DATE);
+
+    @Test
+    public void shouldEvaluateRegisteredExpression() throws Exception {
+        final Document document = documentBuilderPool.parse("<props><imageInfo><width>2048</width></imageInfo></props>");
+
+        assertThat(xpaths.evaluate("/props/imageInfo/width", document), equalTo("2048"));
+    }
+
+    @Test
+    public void shouldReturnEmptyStringWhenNothingMatches() throws Exception {
+        final Document document = documentBuilderPool.parse("<props>empty</props>");
+
+        assertThat(xpaths.evaluate("/props/imageInfo/width", document), equalTo(""));
+    }
+
+    @Test
+    public void shouldEvaluateCompiledPredicates() throws Exception {
+        final Document document = documentBuilderPool.parse("<tl><t><tp>web_publication</tp><cd>1</cd></t>" +
+                "<t><tp>other</tp><cd>2</cd></t><t><tp>web_publication</tp><cd>3</cd></t></tl>");
+
+        assertThat(xpaths.evaluate(WEB_PUBLICATION_DATE, document), equalTo("3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnregisteredExpression() throws Exception {
+        xpaths.evaluate("/props/imageInfo/height", documentBuilderPool.parse("<props/>"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.ft.methodeimagemodelmapper.tasks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.ft.methodeimagemodelmapper.service.ExternalBinaryUrlWhitelist;
+import com.google.common.collect.ImmutableMultimap;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ExternalBinaryUrlWhitelistTaskTest {
+
+    private static final String IG = "https://ig\\.ft\\.com/.*";
+    private static final String FT = "http://www\\.ft\\.com/.*";
+
+    private final ExternalBinaryUrlWhitelist whitelist = new ExternalBinaryUrlWhitelist(Collections.singletonList(IG), new MetricRegistry());
+    private final ExternalBinaryUrlWhitelistTask task = new ExternalBinaryUrlWhitelistTask(whitelist);
+
+    @Test
+    public void thatWhitelistIsPrintedWithoutParameters() throws Exception {
+        assertThat(execute(ImmutableMultimap.<String, String>of()), equalTo(IG + System.lineSeparator()));
+        assertThat(whitelist.getPatterns(), equalTo(Collections.singletonList(IG)));
+    }
+
+    @Test
+    public void thatPatternsReplaceTheWhitelist() throws Exception {
+        final String output = execute(ImmutableMultimap.of("pattern", FT, "pattern", IG));
+
+        assertThat(whitelist.getPatterns(), equalTo(Arrays.asList(FT, IG)));
+        assertThat(output, equalTo(FT + System.lineSeparator() + IG + System.lineSeparator()));
+        assertThat(whitelist.matches("http://www.ft.com/a"), equalTo(true));
+    }
+
+    @Test
+    public void thatInvalidPatternKeepsTheWhitelist() throws Exception {
+        final String output = execute(ImmutableMultimap.of("pattern", FT, "pattern", "(.*"));
+
+        assertThat(output, containsString("Whitelist unchanged"));
+        assertThat(whitelist.getPatterns(), equalTo(Collections.singletonList(IG)));
+    }
+
+    private String execute(final ImmutableMultimap<String, String> parameters) throws Exception {
+        final StringWriter output = new StringWriter();
+        task.execute(parameters, new PrintWriter(output));
+        return output.toString();
+    }
+}